@@ -0,0 +1,141 @@
+// BSTBench.java - JMH benchmarks for BST insert / search / remove
+//
+// Each benchmark handles every key of one data set, so a score is the
+// time for 'size' operations, not one. Keys come in three shapes:
+//
+//   SORTED      0, 1, 2, ...          (worst case for the plain tree)
+//   RANDOM      distinct, random order
+//   DUPLICATES  random, drawn from size / 16 values (count-per-node path)
+//
+// search and remove visit the keys in a different random order than
+// they were inserted. All data is seeded, so runs are comparable.
+package dsa.bench;
+
+import dsa.BST;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BSTBench {
+    public enum Distribution { SORTED, RANDOM, DUPLICATES }
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    @Param({"SORTED", "RANDOM", "DUPLICATES"})
+    Distribution distribution;
+
+    // false = plain BST (new BST()), true = AVL (new BST(true))
+    @Param({"false", "true"})
+    boolean balanced;
+
+    int[] keys; // insertion order
+    int[] probes; // the same keys, shuffled
+    BST tree; // holds all keys
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = keys(size, distribution, new Random(42));
+        probes = keys.clone();
+        shuffle(probes, new Random(7));
+        tree = build();
+    }
+
+    // A fresh full tree before every remove() call. Kept out of the main
+    // state so insert() and search() do not pay for the rebuild.
+    @State(Scope.Thread)
+    public static class RemoveState {
+        BST victim;
+
+        @Setup(Level.Invocation)
+        public void rebuild(BSTBench bench) {
+            victim = bench.build();
+        }
+    }
+
+    @Benchmark
+    public BST insert() {
+        return build();
+    }
+
+    @Benchmark
+    public int search() {
+        int found = 0;
+        for (int key : probes) {
+            if (tree.search(key)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int remove(RemoveState state) {
+        BST victim = state.victim;
+        int removed = 0;
+        for (int key : probes) {
+            if (victim.remove(key)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private BST build() {
+        BST bst = new BST(balanced);
+        for (int key : keys) {
+            bst.insert(key);
+        }
+        return bst;
+    }
+
+    static int[] keys(int size, Distribution distribution, Random random) {
+        int[] keys = new int[size];
+        switch (distribution) {
+            case SORTED:
+                for (int i = 0; i < size; i++) {
+                    keys[i] = i;
+                }
+                break;
+            case RANDOM:
+                for (int i = 0; i < size; i++) {
+                    keys[i] = i * 16; // distinct, with gaps
+                }
+                shuffle(keys, random);
+                break;
+            case DUPLICATES:
+                int distinct = Math.max(1, size / 16);
+                for (int i = 0; i < size; i++) {
+                    keys[i] = random.nextInt(distinct);
+                }
+                break;
+        }
+        return keys;
+    }
+
+    static void shuffle(int[] a, Random random) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+}
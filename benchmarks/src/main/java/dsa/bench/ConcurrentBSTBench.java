@@ -0,0 +1,141 @@
+// ConcurrentBSTBench.java - JMH scaling run: ConcurrentBST vs one lock
+//
+// Every thread runs the same mixed workload on one shared tree: 80%
+// search, 10% insert, 10% remove, over a tree that starts with 100K keys
+// drawn from [0, 1M). Searches and inserts use random keys; a remove
+// takes out the key its thread inserted last, so it always hits and the
+// tree stays within one key per thread of its starting size through
+// every iteration and thread count. 'locked' is an AVL BST behind a single
+// synchronized lock; 'concurrent' is ConcurrentBST. A score is one
+// operation, summed over all threads (ops/us).
+//
+// The nested classes run the same benchmarks at 1, 2, 4 and 8 threads:
+//
+//   java -jar benchmarks.jar ConcurrentBSTBench
+//   java -jar benchmarks.jar 'ConcurrentBSTBench.Threads4'
+//   java -jar benchmarks.jar 'ConcurrentBSTBench.Threads1' -t 16    (any count)
+package dsa.bench;
+
+import dsa.BST;
+import dsa.ConcurrentBST;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class ConcurrentBSTBench {
+    private static final int KEY_RANGE = 1_000_000;
+    private static final int INITIAL_KEYS = 100_000;
+
+    BST locked;
+    ConcurrentBST concurrent;
+
+    @Setup
+    public void setUp() {
+        locked = new BST(true);
+        concurrent = new ConcurrentBST();
+        Random random = new Random(3);
+        for (int i = 0; i < INITIAL_KEYS; i++) {
+            int key = random.nextInt(KEY_RANGE);
+            locked.insert(key);
+            concurrent.insert(key);
+        }
+    }
+
+    // Each thread's own random stream (xorshift, so drawing is cheap and
+    // the threads share nothing but the tree) and its place in the cycle
+    // of 10 ops: insert, remove that key again, then 8 searches
+    @State(Scope.Thread)
+    public static class Ops {
+        private int seed;
+        private int step = 9;
+        int inserted; // the key the last insert added
+
+        @Setup
+        public void setUp() {
+            seed = (int) Thread.currentThread().getId() * 0x9E3779B9 | 1;
+        }
+
+        int next() {
+            int x = seed;
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            return seed = x;
+        }
+
+        // 0 = insert, 1 = remove, anything else = search
+        int nextOp() {
+            return step = step == 9 ? 0 : step + 1;
+        }
+
+        int nextKey() {
+            return (next() >>> 1) % KEY_RANGE;
+        }
+    }
+
+    @Benchmark
+    public boolean locked(Ops ops) {
+        int op = ops.nextOp();
+        int key = op == 1 ? ops.inserted : ops.nextKey();
+        synchronized (locked) {
+            switch (op) {
+                case 0:
+                    locked.insert(key);
+                    ops.inserted = key;
+                    return true;
+                case 1:
+                    return locked.remove(key);
+                default:
+                    return locked.search(key);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean concurrent(Ops ops) {
+        int op = ops.nextOp();
+        int key = op == 1 ? ops.inserted : ops.nextKey();
+        switch (op) {
+            case 0:
+                concurrent.insert(key);
+                ops.inserted = key;
+                return true;
+            case 1:
+                return concurrent.remove(key);
+            default:
+                return concurrent.search(key);
+        }
+    }
+
+    @Threads(1)
+    public static class Threads1 extends ConcurrentBSTBench {
+    }
+
+    @Threads(2)
+    public static class Threads2 extends ConcurrentBSTBench {
+    }
+
+    @Threads(4)
+    public static class Threads4 extends ConcurrentBSTBench {
+    }
+
+    @Threads(8)
+    public static class Threads8 extends ConcurrentBSTBench {
+    }
+}
@@ -0,0 +1,77 @@
+// ConvertFileBench.java - JMH benchmark for Expressions.convertFile
+//
+// End to end: read a file of 'lines' expressions, convert every line
+// and write the result. 1000 lines stay on the reader path; 50000 lines
+// (a few MB) go through FileConverter's memory-mapped path. A score is
+// one whole file - divide by 'lines' for the cost per line.
+package dsa.bench;
+
+import dsa.Expressions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConvertFileBench {
+    @Param({"1000", "50000"})
+    int lines;
+
+    @Param({"infix2postfix", "postfix2infix"})
+    String mode;
+
+    @Param({"1", "4"})
+    int threads;
+
+    Path input;
+    Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            String postfix = ExpressionsBench.randomPostfix(2 + random.nextInt(30), random);
+            text.append(mode.equals("infix2postfix") ? Expressions.postfixToInfix(postfix) : postfix).append('\n');
+        }
+        input = Files.createTempFile("bench", ".txt");
+        output = Files.createTempFile("bench", ".out");
+        Files.writeString(input, text, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public long convertFile() {
+        Expressions.convertFile(mode, input.toString(), output.toString(), false, threads);
+        try {
+            return Files.size(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// ExpressionsBench.java - JMH benchmarks for infix <-> postfix conversion
+//
+// Expressions are random binary trees over + - * / ^ with 'operands'
+// leaves (single letters and small numbers), seeded so every run sees
+// the same text. The infix form is what postfixToInfix writes, so it has
+// only the parentheses it needs. A score is one conversion.
+package dsa.bench;
+
+import dsa.Expressions;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionsBench {
+    private static final String[] OPS = {"+", "-", "*", "/", "^"};
+
+    @Param({"4", "32", "256"})
+    int operands;
+
+    String infix;
+    String postfix;
+
+    @Setup
+    public void setUp() {
+        postfix = randomPostfix(operands, new Random(42));
+        infix = Expressions.postfixToInfix(postfix);
+    }
+
+    @Benchmark
+    public String infixToPostfix() {
+        return Expressions.infixToPostfix(infix);
+    }
+
+    @Benchmark
+    public String postfixToInfix() {
+        return Expressions.postfixToInfix(postfix);
+    }
+
+    // A postfix expression with 'operands' operands and a random shape
+    static String randomPostfix(int operands, Random random) {
+        StringBuilder out = new StringBuilder();
+        appendPostfix(operands, random, out);
+        return out.toString();
+    }
+
+    private static void appendPostfix(int operands, Random random, StringBuilder out) {
+        if (out.length() > 0) {
+            out.append(' ');
+        }
+        if (operands == 1) {
+            if (random.nextInt(4) == 0) {
+                out.append(random.nextInt(100));
+            } else {
+                out.append((char) ('a' + random.nextInt(26)));
+            }
+            return;
+        }
+        int left = 1 + random.nextInt(operands - 1);
+        appendPostfix(left, random, out);
+        appendPostfix(operands - left, random, out);
+        out.append(' ').append(OPS[random.nextInt(OPS.length)]);
+    }
+}
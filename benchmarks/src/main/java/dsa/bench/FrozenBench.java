@@ -0,0 +1,91 @@
+// FrozenBench.java - JMH comparison of FrozenBST.search and BST.search
+//
+// Both trees hold the same 'size' keys (0, 2, 4, ...): an AVL BST built
+// with fromSorted, and its freeze(). The sizes run from a tree that fits
+// in L1 (1K keys, 4 KB frozen) to one far beyond any last-level cache
+// (16M keys, 64 MB frozen and about 640 MB of Node objects). Each call
+// searches the next 1024 of 1M random keys, half of them present, so the
+// paths of large trees do not stay cached between calls. A score is one
+// search.
+//
+// The 16M trees need a large heap; the fork gets -Xmx3g.
+package dsa.bench;
+
+import dsa.BST;
+import dsa.FrozenBST;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class FrozenBench {
+    private static final int PROBES = 1024; // per call
+    private static final int POOL = 1 << 20; // probe keys cycled through
+
+    @Param({"1024", "16384", "262144", "4194304", "16777216"})
+    int size;
+
+    BST tree;
+    FrozenBST frozen;
+    int[] probes;
+    int next; // start of the next call's probes
+
+    @Setup
+    public void setUp() {
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        tree = BST.fromSorted(keys);
+        frozen = tree.freeze();
+        Random random = new Random(42);
+        probes = new int[POOL];
+        for (int i = 0; i < POOL; i++) {
+            probes[i] = random.nextInt(2 * size); // odd keys miss
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int bst() {
+        int found = 0;
+        int from = next;
+        for (int i = from; i < from + PROBES; i++) {
+            if (tree.search(probes[i])) {
+                found++;
+            }
+        }
+        next = (from + PROBES) & (POOL - 1);
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int frozen() {
+        int found = 0;
+        int from = next;
+        for (int i = from; i < from + PROBES; i++) {
+            if (frozen.search(probes[i])) {
+                found++;
+            }
+        }
+        next = (from + PROBES) & (POOL - 1);
+        return found;
+    }
+}
@@ -0,0 +1,30 @@
+// RunBenchmarks.java - Entry point of benchmarks.jar
+//
+// Same options as JMH's own Main, except results go to jmh-result.json
+// unless -rf picks another format. Keep the JSON from each release to
+// compare against the next one.
+//
+//   java -jar benchmarks.jar                          all benchmarks
+//   java -jar benchmarks.jar ExpressionsBench -f 1    one class
+//   java -jar benchmarks.jar -rff v1.2.json           name the result file
+//   java -jar benchmarks.jar -h                       every JMH option
+package dsa.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openjdk.jmh.Main;
+
+public final class RunBenchmarks {
+    private RunBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(Arrays.asList(args));
+        if (!argv.contains("-rf")) {
+            argv.add(0, "-rf");
+            argv.add(1, "json");
+        }
+        Main.main(argv.toArray(new String[0]));
+    }
+}
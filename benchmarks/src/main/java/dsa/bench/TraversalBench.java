@@ -0,0 +1,118 @@
+// TraversalBench.java - JMH benchmarks for every BST traversal style
+//
+// One benchmark per style (visitor, forEach, array, list, iterator,
+// stream), each run for all four orders. A score is one full traversal
+// of an AVL tree of 'size' random keys.
+package dsa.bench;
+
+import dsa.BST;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TraversalBench {
+    public enum Order { INORDER, PREORDER, POSTORDER, LEVEL_ORDER }
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"INORDER", "PREORDER", "POSTORDER", "LEVEL_ORDER"})
+    Order order;
+
+    BST tree;
+
+    @Setup
+    public void setUp() {
+        tree = new BST(true);
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            tree.insert(random.nextInt());
+        }
+    }
+
+    @Benchmark
+    public void visit(Blackhole bh) {
+        BST.KeyCountVisitor visitor = (key, count) -> {
+            bh.consume(key);
+            bh.consume(count);
+        };
+        switch (order) {
+            case INORDER: tree.visitInorder(visitor); break;
+            case PREORDER: tree.visitPreorder(visitor); break;
+            case POSTORDER: tree.visitPostorder(visitor); break;
+            case LEVEL_ORDER: tree.visitLevelOrder(visitor); break;
+        }
+    }
+
+    @Benchmark
+    public void forEach(Blackhole bh) {
+        switch (order) {
+            case INORDER: tree.forEachInorder(bh::consume); break;
+            case PREORDER: tree.forEachPreorder(bh::consume); break;
+            case POSTORDER: tree.forEachPostorder(bh::consume); break;
+            case LEVEL_ORDER: tree.forEachLevelOrder(bh::consume); break;
+        }
+    }
+
+    @Benchmark
+    public int[] array() {
+        switch (order) {
+            case INORDER: return tree.inorderArray();
+            case PREORDER: return tree.preorderArray();
+            case POSTORDER: return tree.postorderArray();
+            default: return tree.levelOrderArray();
+        }
+    }
+
+    @Benchmark
+    public Object list() {
+        switch (order) {
+            case INORDER: return tree.inorder();
+            case PREORDER: return tree.preorder();
+            case POSTORDER: return tree.postorder();
+            default: return tree.levelOrder();
+        }
+    }
+
+    @Benchmark
+    public void iterator(Blackhole bh) {
+        PrimitiveIterator.OfInt it;
+        switch (order) {
+            case INORDER: it = tree.inorderIterator(); break;
+            case PREORDER: it = tree.preorderIterator(); break;
+            case POSTORDER: it = tree.postorderIterator(); break;
+            default: it = tree.levelOrderIterator(); break;
+        }
+        while (it.hasNext()) {
+            bh.consume(it.nextInt());
+        }
+    }
+
+    @Benchmark
+    public long stream() {
+        switch (order) {
+            case INORDER: return tree.inorderStream().asLongStream().sum();
+            case PREORDER: return tree.preorderStream().asLongStream().sum();
+            case POSTORDER: return tree.postorderStream().asLongStream().sum();
+            default: return tree.levelOrderStream().asLongStream().sum();
+        }
+    }
+}
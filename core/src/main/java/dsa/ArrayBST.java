@@ -0,0 +1,471 @@
+// ArrayBST.java - BST stored in parallel int arrays instead of Node objects
+//
+// Node i lives at keys[i], counts[i], lefts[i], rights[i], heights[i].
+// Children are array indexes and 0 means "no child", so slot 0 is never
+// used. That is 20 bytes per distinct key with no object headers or
+// pointers for the GC to trace, and nodes created together sit next to
+// each other in memory.
+//
+// Slots freed by remove() go on a free list (linked through lefts[]) and
+// are handed out again by the next insert, so the arrays only grow when
+// the tree really gets bigger.
+//
+// Same operations and traversals as BST; order statistics are left out
+// to keep the per-node footprint small.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class ArrayBST {
+    private static final int NIL = 0;
+
+    int[] keys;
+    int[] counts;
+    int[] lefts;
+    int[] rights;
+    int[] heights;
+
+    int root = NIL;
+    int size; // number of nodes
+    int total; // number of keys, counting duplicates
+    final boolean balanced; // keep the tree AVL-balanced
+
+    private int used = 1; // slots handed out so far, slot 0 is NIL
+    private int freeHead = NIL; // first slot on the free list
+
+    // Unbalanced, like new BST()
+    public ArrayBST() {
+        this(false);
+    }
+
+    // balanced = true keeps the tree AVL-balanced, like new BST(true)
+    public ArrayBST(boolean balanced) {
+        this(balanced, 16);
+    }
+
+    // Reserve room for 'capacity' distinct keys up front
+    public ArrayBST(boolean balanced, int capacity) {
+        this.balanced = balanced;
+        int length = Math.max(capacity, 1) + 1;
+        keys = new int[length];
+        counts = new int[length];
+        lefts = new int[length];
+        rights = new int[length];
+        heights = new int[length];
+    }
+
+    // Take a slot from the free list, or the next unused one
+    private int allocate(int data) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = lefts[node];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            node = used++;
+        }
+        keys[node] = data;
+        counts[node] = 1;
+        lefts[node] = NIL;
+        rights[node] = NIL;
+        heights[node] = 1;
+        return node;
+    }
+
+    private void free(int node) {
+        counts[node] = 0;
+        rights[node] = NIL;
+        lefts[node] = freeHead;
+        freeHead = node;
+    }
+
+    private void grow() {
+        // 1.5x, capped at the largest array the VM will give us
+        int length = (int) Math.min(Integer.MAX_VALUE - 8, keys.length + (keys.length >> 1) + 1L);
+        if (length <= keys.length) {
+            throw new IllegalStateException("ArrayBST is full");
+        }
+        keys = Arrays.copyOf(keys, length);
+        counts = Arrays.copyOf(counts, length);
+        lefts = Arrays.copyOf(lefts, length);
+        rights = Arrays.copyOf(rights, length);
+        heights = Arrays.copyOf(heights, length);
+    }
+
+    // Insert a number
+    public void insert(int data) {
+        total++;
+        if (root == NIL) {
+            root = allocate(data);
+            size++;
+            return;
+        }
+
+        int[] path = path(heights[root]);
+        int depth = 0;
+        int current = root;
+        while (true) {
+            path[depth++] = current;
+            if (data < keys[current]) {
+                if (lefts[current] == NIL) {
+                    int node = allocate(data);
+                    lefts[current] = node;
+                    break;
+                }
+                current = lefts[current];
+            } else if (data > keys[current]) {
+                if (rights[current] == NIL) {
+                    int node = allocate(data);
+                    rights[current] = node;
+                    break;
+                }
+                current = rights[current];
+            } else {
+                // duplicate - just increase count
+                counts[current]++;
+                return;
+            }
+        }
+        size++;
+        retrace(path, depth);
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        int current = root;
+        while (current != NIL) {
+            int key = keys[current];
+            if (data < key) {
+                current = lefts[current];
+            } else if (data > key) {
+                current = rights[current];
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Remove one occurrence of a number
+    public boolean remove(int data) {
+        if (root == NIL) {
+            return false;
+        }
+
+        int[] path = path(heights[root]);
+        int depth = 0;
+        int current = root;
+        while (current != NIL && keys[current] != data) {
+            path[depth++] = current;
+            current = data < keys[current] ? lefts[current] : rights[current];
+        }
+        if (current == NIL) {
+            return false;
+        }
+
+        total--;
+        if (counts[current] > 1) {
+            // has duplicates, just decrease count
+            counts[current]--;
+            return true;
+        }
+
+        // only 1 occurrence, need to remove node
+        size--;
+        if (lefts[current] == NIL || rights[current] == NIL) {
+            // leaf or one child - splice the node out
+            int child = lefts[current] != NIL ? lefts[current] : rights[current];
+            if (depth == 0) {
+                root = child;
+            } else {
+                replaceChild(path[depth - 1], current, child);
+            }
+            free(current);
+        } else {
+            // two children, move the successor (with its count) up here
+            path[depth++] = current;
+            int successor = rights[current];
+            while (lefts[successor] != NIL) {
+                path[depth++] = successor;
+                successor = lefts[successor];
+            }
+            keys[current] = keys[successor];
+            counts[current] = counts[successor];
+            replaceChild(path[depth - 1], successor, rights[successor]);
+            free(successor);
+        }
+        retrace(path, depth);
+        return true;
+    }
+
+    // Scratch stack for insert/remove, reused so updates do not allocate
+    private int[] pathBuffer = new int[32];
+
+    private int[] path(int depth) {
+        if (pathBuffer.length < depth) {
+            pathBuffer = new int[Math.max(depth, pathBuffer.length * 2)];
+        }
+        return pathBuffer;
+    }
+
+    private void replaceChild(int parent, int child, int replacement) {
+        if (lefts[parent] == child) {
+            lefts[parent] = replacement;
+        } else {
+            rights[parent] = replacement;
+        }
+    }
+
+    // Walk the recorded path bottom-up, fixing heights and rebalancing.
+    // Stops once a node comes out unchanged, nothing above it can change.
+    private void retrace(int[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = heights[node];
+            int fixed = rebalance(node);
+            if (i == 0) {
+                root = fixed;
+            } else {
+                replaceChild(path[i - 1], node, fixed);
+            }
+            if (fixed == node && heights[node] == oldHeight) {
+                break;
+            }
+        }
+    }
+
+    private int height(int node) {
+        return node == NIL ? 0 : heights[node];
+    }
+
+    private void updateHeight(int node) {
+        heights[node] = 1 + Math.max(height(lefts[node]), height(rights[node]));
+    }
+
+    private int rotateRight(int node) {
+        int left = lefts[node];
+        lefts[node] = rights[left];
+        rights[left] = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private int rotateLeft(int node) {
+        int right = rights[node];
+        rights[node] = lefts[right];
+        lefts[right] = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
+
+    // Same AVL rules as BST.rebalance
+    private int rebalance(int node) {
+        updateHeight(node);
+        if (!balanced) {
+            return node;
+        }
+
+        int balance = height(lefts[node]) - height(rights[node]);
+        if (balance > 1) {
+            int left = lefts[node];
+            if (height(lefts[left]) < height(rights[left])) {
+                lefts[node] = rotateLeft(left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            int right = rights[node];
+            if (height(rights[right]) < height(lefts[right])) {
+                rights[node] = rotateRight(right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // INORDER: Left -> Node -> Right (sorted order)
+    public void visitInorder(BST.KeyCountVisitor visitor) {
+        int[] stack = new int[height(root)];
+        int top = 0;
+        int current = root;
+        while (current != NIL || top > 0) {
+            while (current != NIL) {
+                stack[top++] = current;
+                current = lefts[current];
+            }
+            current = stack[--top];
+            visitor.visit(keys[current], counts[current]);
+            current = rights[current];
+        }
+    }
+
+    // PREORDER: Node -> Left -> Right
+    public void visitPreorder(BST.KeyCountVisitor visitor) {
+        if (root == NIL) {
+            return;
+        }
+
+        int[] stack = new int[height(root) + 1];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int current = stack[--top];
+            visitor.visit(keys[current], counts[current]);
+            if (rights[current] != NIL) {
+                stack[top++] = rights[current];
+            }
+            if (lefts[current] != NIL) {
+                stack[top++] = lefts[current];
+            }
+        }
+    }
+
+    // POSTORDER: Left -> Right -> Node
+    public void visitPostorder(BST.KeyCountVisitor visitor) {
+        int[] stack = new int[height(root)];
+        int top = 0;
+        int current = root;
+        int lastVisited = NIL;
+        while (current != NIL || top > 0) {
+            while (current != NIL) {
+                stack[top++] = current;
+                current = lefts[current];
+            }
+            int peek = stack[top - 1];
+            if (rights[peek] != NIL && rights[peek] != lastVisited) {
+                // right subtree not done yet
+                current = rights[peek];
+            } else {
+                visitor.visit(keys[peek], counts[peek]);
+                lastVisited = stack[--top];
+            }
+        }
+    }
+
+    // LEVEL ORDER: Level by level (BFS)
+    public void visitLevelOrder(BST.KeyCountVisitor visitor) {
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        if (root != NIL) {
+            queue[tail++] = root;
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            visitor.visit(keys[current], counts[current]);
+            if (lefts[current] != NIL) {
+                queue[tail++] = lefts[current];
+            }
+            if (rights[current] != NIL) {
+                queue[tail++] = rights[current];
+            }
+        }
+    }
+
+    public void forEachInorder(IntConsumer action) {
+        visitInorder(BST.expand(action));
+    }
+
+    public void forEachPreorder(IntConsumer action) {
+        visitPreorder(BST.expand(action));
+    }
+
+    public void forEachPostorder(IntConsumer action) {
+        visitPostorder(BST.expand(action));
+    }
+
+    public void forEachLevelOrder(IntConsumer action) {
+        visitLevelOrder(BST.expand(action));
+    }
+
+    public int[] inorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitInorder(filler);
+        return filler.values;
+    }
+
+    public int[] preorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitPreorder(filler);
+        return filler.values;
+    }
+
+    public int[] postorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitPostorder(filler);
+        return filler.values;
+    }
+
+    public int[] levelOrderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitLevelOrder(filler);
+        return filler.values;
+    }
+
+    // Sorted (key, count) pairs packed as key0, count0, key1, count1, ...
+    public int[] inorderRuns() {
+        BST.RunFiller filler = new BST.RunFiller(size);
+        visitInorder(filler);
+        return filler.runs;
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitInorder(BST.addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> preorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitPreorder(BST.addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> postorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitPostorder(BST.addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> levelOrder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitLevelOrder(BST.addTo(list));
+        return list;
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    // Get size
+    public int getSize() {
+        return size;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+
+    // Get height (empty tree = 0, single node = 1)
+    public int getHeight() {
+        return height(root);
+    }
+
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    // Slots the arrays can hold before they have to grow
+    public int capacity() {
+        return keys.length - 1;
+    }
+}
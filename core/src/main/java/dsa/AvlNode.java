@@ -0,0 +1,18 @@
+// AvlNode.java - Links, count and height of a LongBST / DoubleBST /
+// GenericBST node
+//
+// Each tree's Node adds its own key field on top of this, so AvlPath can
+// rebalance all three without knowing the key type.
+package dsa;
+
+abstract class AvlNode<N extends AvlNode<N>> {
+    N left;
+    N right;
+    int count; // for duplicates
+    int height = 1;
+
+    // Empty tree = 0, single node = 1
+    static int height(AvlNode<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -0,0 +1,112 @@
+// AvlPath.java - Update bookkeeping shared by LongBST, DoubleBST and
+// GenericBST
+//
+// insert/remove walk down from the root, recording each node they pass
+// in nodes(); retrace() then walks that path back up, fixing heights and
+// (in balanced mode) rotating with the same AVL rules as BST. None of it
+// looks at keys. BST keeps its own version because its nodes also carry
+// the subtree sizes that order statistics need.
+package dsa;
+
+import java.util.function.IntFunction;
+
+final class AvlPath<N extends AvlNode<N>> {
+    private final IntFunction<N[]> newArray;
+    private final boolean balanced;
+    private N[] nodes; // scratch stack, reused so updates do not allocate
+
+    AvlPath(IntFunction<N[]> newArray, boolean balanced) {
+        this.newArray = newArray;
+        this.balanced = balanced;
+        this.nodes = newArray.apply(32);
+    }
+
+    // Room for a path of 'depth' nodes; the tree's height is enough
+    N[] nodes(int depth) {
+        if (nodes.length < depth) {
+            nodes = newArray.apply(Math.max(depth, nodes.length * 2));
+        }
+        return nodes;
+    }
+
+    // Drop the references to an abandoned path
+    void clear(int depth) {
+        for (int i = 0; i < depth; i++) {
+            nodes[i] = null;
+        }
+    }
+
+    // Walk the recorded path bottom-up, fixing heights and rebalancing;
+    // returns the (possibly new) root
+    N retrace(N root, int depth) {
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            N node = nodes[i];
+            nodes[i] = null;
+            int oldHeight = node.height;
+            N fixed = rebalance(node);
+            if (i == 0) {
+                root = fixed;
+            } else {
+                replaceChild(nodes[i - 1], node, fixed);
+            }
+            if (fixed == node && node.height == oldHeight) {
+                break;
+            }
+        }
+        clear(i);
+        return root;
+    }
+
+    static <N extends AvlNode<N>> void replaceChild(N parent, N child, N replacement) {
+        if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private static void updateHeight(AvlNode<?> node) {
+        node.height = 1 + Math.max(AvlNode.height(node.left), AvlNode.height(node.right));
+    }
+
+    private static <N extends AvlNode<N>> N rotateRight(N node) {
+        N left = node.left;
+        node.left = left.right;
+        left.right = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private static <N extends AvlNode<N>> N rotateLeft(N node) {
+        N right = node.right;
+        node.right = right.left;
+        right.left = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
+
+    private N rebalance(N node) {
+        updateHeight(node);
+        if (!balanced) {
+            return node;
+        }
+
+        int balance = AvlNode.height(node.left) - AvlNode.height(node.right);
+        if (balance > 1) {
+            if (AvlNode.height(node.left.left) < AvlNode.height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (AvlNode.height(node.right.right) < AvlNode.height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+}
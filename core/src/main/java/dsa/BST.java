@@ -0,0 +1,1378 @@
+/*
+bst.py — Binary Search Tree (BST) implementation
+
+Features
+- insert(key) with duplicate handling (counts)
+- search(key) -> bool
+- remove(key) -> bool (deletes one occurrence; returns False if not found)
+- Traversals: inorder(), preorder(), postorder(), level_order()
+- __len__ for number of *distinct* keys (nodes), not total duplicates
+
+Usage
+>>> from bst import BST
+>>> bst = BST()
+>>> for x in [7, 3, 9, 1, 5, 8, 10, 5, 5]:
+...     bst.insert(x)
+>>> bst.inorder()
+[1, 3, 5, 5, 5, 7, 8, 9, 10]
+>>> bst.remove(7)
+True
+>>> bst.inorder()
+[1, 3, 5, 5, 5, 8, 9, 10]
+*/
+
+// BST.java - Simple Binary Search Tree with duplicates
+package dsa;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public class BST {
+    Node root;
+    int size; // number of nodes
+    int total; // number of keys, counting duplicates
+    final boolean balanced; // keep the tree AVL-balanced
+    long searches; // search() calls and the nodes they looked at,
+    long searchSteps; // counted only with Metrics.ENABLED (see TreeMetrics)
+
+    public BST() {
+        this(false);
+    }
+
+    // balanced = true keeps the tree AVL-balanced, so insert/search/remove
+    // stay O(log n) even when keys arrive in sorted order
+    public BST(boolean balanced) {
+        root = null;
+        size = 0;
+        total = 0;
+        this.balanced = balanced;
+    }
+
+    // Insert a number
+    public void insert(int data) {
+        total++;
+        if (root == null) {
+            root = new Node(data);
+            size++;
+            return;
+        }
+
+        Node[] path = path(root.height);
+        int depth = 0;
+        Node current = root;
+        while (true) {
+            path[depth++] = current;
+            if (data < current.data) {
+                if (current.left == null) {
+                    current.left = new Node(data);
+                    break;
+                }
+                current = current.left;
+            } else if (data > current.data) {
+                if (current.right == null) {
+                    current.right = new Node(data);
+                    break;
+                }
+                current = current.right;
+            } else {
+                // duplicate - just increase count
+                current.count++;
+                addToTotals(path, depth, 1);
+                return;
+            }
+        }
+        size++;
+        retrace(path, depth);
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        if (Metrics.ENABLED) {
+            return countedSearch(data);
+        }
+        Node current = root;
+        while (current != null) {
+            if (data < current.data) {
+                current = current.left;
+            } else if (data > current.data) {
+                current = current.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // search() that also counts the nodes it looks at
+    private boolean countedSearch(int data) {
+        searches++;
+        Node current = root;
+        while (current != null) {
+            searchSteps++;
+            if (data < current.data) {
+                current = current.left;
+            } else if (data > current.data) {
+                current = current.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Remove one occurrence of a number
+    public boolean remove(int data) {
+        if (root == null || !removeHelper(data)) {
+            return false;
+        }
+        total--;
+        return true;
+    }
+
+    // One descent: finds the node and records the path on the way down
+    private boolean removeHelper(int data) {
+        Node[] path = path(root.height);
+        int depth = 0;
+        Node current = root;
+        while (current != null && current.data != data) {
+            path[depth++] = current;
+            current = data < current.data ? current.left : current.right;
+        }
+        if (current == null) {
+            clearPath(depth);
+            return false;
+        }
+
+        // found it!
+        if (current.count > 1) {
+            // has duplicates, just decrease count
+            current.count--;
+            current.total--;
+            addToTotals(path, depth, -1);
+            return true;
+        }
+
+        // only 1 occurrence, need to remove node
+        size--;
+        if (current.left == null || current.right == null) {
+            // leaf or one child - splice the node out
+            Node child = current.left != null ? current.left : current.right;
+            if (depth == 0) {
+                root = child;
+            } else {
+                replaceChild(path[depth - 1], current, child);
+            }
+        } else {
+            // two children, move the successor (with its count) up here
+            path[depth++] = current;
+            Node successor = current.right;
+            while (successor.left != null) {
+                path[depth++] = successor;
+                successor = successor.left;
+            }
+            current.data = successor.data;
+            current.count = successor.count;
+            replaceChild(path[depth - 1], successor, successor.right);
+        }
+        retrace(path, depth);
+        return true;
+    }
+
+    // Scratch stack for insert/remove, reused so updates do not allocate
+    private Node[] pathBuffer = new Node[32];
+
+    private Node[] path(int depth) {
+        if (pathBuffer.length < depth) {
+            pathBuffer = new Node[Math.max(depth, pathBuffer.length * 2)];
+        }
+        return pathBuffer;
+    }
+
+    private void clearPath(int depth) {
+        for (int i = 0; i < depth; i++) {
+            pathBuffer[i] = null;
+        }
+    }
+
+    private void replaceChild(Node parent, Node child, Node replacement) {
+        if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    // Walk the recorded path bottom-up, fixing heights and sizes and
+    // rebalancing. Once a node comes out with the same shape and height,
+    // nothing above it can need a rotation, so the rest only gets its
+    // sizes refreshed.
+    private void retrace(Node[] path, int depth) {
+        boolean settled = false;
+        for (int i = depth - 1; i >= 0; i--) {
+            Node node = path[i];
+            path[i] = null;
+            if (settled) {
+                update(node);
+                continue;
+            }
+            int oldHeight = node.height;
+            Node fixed = rebalance(node);
+            if (i == 0) {
+                root = fixed;
+            } else {
+                replaceChild(path[i - 1], node, fixed);
+            }
+            settled = fixed == node && node.height == oldHeight;
+        }
+    }
+
+    // Duplicate count changed below the path, shape did not
+    private void addToTotals(Node[] path, int depth, int delta) {
+        for (int i = 0; i < depth; i++) {
+            path[i].total += delta;
+            path[i] = null;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int total(Node node) {
+        return node == null ? 0 : node.total;
+    }
+
+    // Recompute height and subtree sizes from the children
+    private static void update(Node node) {
+        Node left = node.left;
+        Node right = node.right;
+        node.height = 1 + Math.max(height(left), height(right));
+        node.size = 1 + size(left) + size(right);
+        node.total = node.count + total(left) + total(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    // Refresh the height and sizes of a node and, in balanced mode, restore the AVL
+    // property (child heights differ by at most 1) with one or two rotations
+    private Node rebalance(Node node) {
+        update(node);
+        if (!balanced) {
+            return node;
+        }
+
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // ORDER STATISTICS - every node knows the size of its subtree, so
+    // these descend once from the root: O(height)
+
+    // k-th smallest key (0-based, duplicates counted), same as inorder().get(k)
+    public int select(int k) {
+        if (k < 0 || k >= total) {
+            throw new IndexOutOfBoundsException("k = " + k + ", total = " + total);
+        }
+        Node current = root;
+        while (true) {
+            int leftTotal = total(current.left);
+            if (k < leftTotal) {
+                current = current.left;
+            } else if (k < leftTotal + current.count) {
+                return current.data;
+            } else {
+                k -= leftTotal + current.count;
+                current = current.right;
+            }
+        }
+    }
+
+    // Number of keys smaller than 'key' (duplicates counted)
+    public int rank(int key) {
+        return countBelow(root, key, false);
+    }
+
+    // Number of keys in [lo, hi] (duplicates counted)
+    public int countInRange(int lo, int hi) {
+        return countInRange(root, lo, hi);
+    }
+
+    private static int countInRange(Node root, int lo, int hi) {
+        if (lo > hi) {
+            return 0;
+        }
+        return countBelow(root, hi, true) - countBelow(root, lo, false);
+    }
+
+    // Keys < key, or <= key when inclusive
+    private static int countBelow(Node root, int key, boolean inclusive) {
+        int count = 0;
+        Node current = root;
+        while (current != null) {
+            if (key < current.data || (key == current.data && !inclusive)) {
+                current = current.left;
+            } else {
+                count += total(current.left) + current.count;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return count;
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public Integer floor(int key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key < current.data) {
+                current = current.left;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public Integer ceiling(int key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key > current.data) {
+                current = current.right;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.left;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // Keys in [lo, hi] in sorted order, duplicates repeated
+    public PrimitiveIterator.OfInt rangeIterator(int lo, int hi) {
+        return new InorderIterator(root, lo, hi);
+    }
+
+    // Callback for traversals that report each node once, as a key and
+    // how many times it was inserted (run-length form)
+    public interface KeyCountVisitor {
+        void visit(int key, int count);
+    }
+
+    // Traversals below use an explicit stack sized to the tree height, so
+    // deep (unbalanced) trees are limited by heap rather than call stack.
+    // The visit* methods allocate nothing per node.
+
+    // INORDER: Left -> Node -> Right (sorted order)
+    public void visitInorder(KeyCountVisitor visitor) {
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            visitor.visit(current.data, current.count);
+            current = current.right;
+        }
+    }
+
+    // PREORDER: Node -> Left -> Right
+    public void visitPreorder(KeyCountVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+
+        Node[] stack = new Node[height(root) + 1];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node current = stack[--top];
+            visitor.visit(current.data, current.count);
+            if (current.right != null) {
+                stack[top++] = current.right;
+            }
+            if (current.left != null) {
+                stack[top++] = current.left;
+            }
+        }
+    }
+
+    // POSTORDER: Left -> Right -> Node
+    public void visitPostorder(KeyCountVisitor visitor) {
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        Node current = root;
+        Node lastVisited = null;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            Node peek = stack[top - 1];
+            if (peek.right != null && peek.right != lastVisited) {
+                // right subtree not done yet
+                current = peek.right;
+            } else {
+                visitor.visit(peek.data, peek.count);
+                lastVisited = stack[--top];
+            }
+        }
+    }
+
+    // LEVEL ORDER: Level by level (BFS)
+    public void visitLevelOrder(KeyCountVisitor visitor) {
+        // every node is queued exactly once, so a plain array is enough
+        Node[] queue = new Node[size];
+        int head = 0;
+        int tail = 0;
+        if (root != null) {
+            queue[tail++] = root;
+        }
+
+        while (head < tail) {
+            Node current = queue[head++];
+            visitor.visit(current.data, current.count);
+            if (current.left != null) {
+                queue[tail++] = current.left;
+            }
+            if (current.right != null) {
+                queue[tail++] = current.right;
+            }
+        }
+    }
+
+    // forEach* pass every key to the action, 'count' times for duplicates
+    public void forEachInorder(IntConsumer action) {
+        visitInorder(expand(action));
+    }
+
+    public void forEachPreorder(IntConsumer action) {
+        visitPreorder(expand(action));
+    }
+
+    public void forEachPostorder(IntConsumer action) {
+        visitPostorder(expand(action));
+    }
+
+    public void forEachLevelOrder(IntConsumer action) {
+        visitLevelOrder(expand(action));
+    }
+
+    static KeyCountVisitor expand(IntConsumer action) {
+        return (key, count) -> {
+            for (int i = 0; i < count; i++) {
+                action.accept(key);
+            }
+        };
+    }
+
+    // *Array variants return the same keys as the list traversals, unboxed
+    public int[] inorderArray() {
+        ArrayFiller filler = new ArrayFiller(total);
+        visitInorder(filler);
+        return filler.values;
+    }
+
+    public int[] preorderArray() {
+        ArrayFiller filler = new ArrayFiller(total);
+        visitPreorder(filler);
+        return filler.values;
+    }
+
+    public int[] postorderArray() {
+        ArrayFiller filler = new ArrayFiller(total);
+        visitPostorder(filler);
+        return filler.values;
+    }
+
+    public int[] levelOrderArray() {
+        ArrayFiller filler = new ArrayFiller(total);
+        visitLevelOrder(filler);
+        return filler.values;
+    }
+
+    // Sorted (key, count) pairs packed as key0, count0, key1, count1, ...
+    public int[] inorderRuns() {
+        RunFiller filler = new RunFiller(size);
+        visitInorder(filler);
+        return filler.runs;
+    }
+
+    static class RunFiller implements KeyCountVisitor {
+        final int[] runs;
+        int pos = 0;
+
+        RunFiller(int nodes) {
+            runs = new int[2 * nodes];
+        }
+
+        public void visit(int key, int count) {
+            runs[pos++] = key;
+            runs[pos++] = count;
+        }
+    }
+
+    static class ArrayFiller implements KeyCountVisitor {
+        final int[] values;
+        int pos = 0;
+
+        ArrayFiller(int length) {
+            values = new int[length];
+        }
+
+        public void visit(int key, int count) {
+            for (int i = 0; i < count; i++) {
+                values[pos++] = key;
+            }
+        }
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitInorder(addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> preorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitPreorder(addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> postorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitPostorder(addTo(list));
+        return list;
+    }
+
+    public ArrayList<Integer> levelOrder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitLevelOrder(addTo(list));
+        return list;
+    }
+
+    // add the number 'count' times
+    static KeyCountVisitor addTo(ArrayList<Integer> list) {
+        return (key, count) -> {
+            for (int i = 0; i < count; i++) {
+                list.add(key);
+            }
+        };
+    }
+
+    // Lazy iterators: each holds only its traversal stack, so they are
+    // cheap to create and stop touching nodes as soon as the caller stops.
+    // Do not modify the tree while iterating.
+
+    public PrimitiveIterator.OfInt inorderIterator() {
+        return new InorderIterator(root, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    // Inorder from the first key >= fromKey; only walks the path down to it
+    public PrimitiveIterator.OfInt inorderIterator(int fromKey) {
+        return new InorderIterator(root, fromKey, Integer.MAX_VALUE);
+    }
+
+    public PrimitiveIterator.OfInt preorderIterator() {
+        return new PreorderIterator(root);
+    }
+
+    public PrimitiveIterator.OfInt postorderIterator() {
+        return new PostorderIterator(root);
+    }
+
+    // Needs a queue as wide as the widest level, not just O(height)
+    public PrimitiveIterator.OfInt levelOrderIterator() {
+        return new LevelOrderIterator(root);
+    }
+
+    // Sorted stream whose spliterator splits at subtree boundaries, so
+    // inorderStream().parallel() spreads the work across cores
+    public IntStream inorderStream() {
+        return StreamSupport.intStream(
+                new InorderSpliterator(root, Integer.MIN_VALUE, Integer.MAX_VALUE), false);
+    }
+
+    public IntStream preorderStream() {
+        return StreamSupport.intStream(Spliterators.spliterator(
+                preorderIterator(), total, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public IntStream postorderStream() {
+        return StreamSupport.intStream(Spliterators.spliterator(
+                postorderIterator(), total, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public IntStream levelOrderStream() {
+        return StreamSupport.intStream(Spliterators.spliterator(
+                levelOrderIterator(), total, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Turns a sequence of nodes into keys, repeating each 'count' times
+    private abstract static class NodeIterator implements PrimitiveIterator.OfInt {
+        private Node pending;
+        private int remaining;
+
+        // next node in traversal order, or null when done
+        abstract Node nextNode();
+
+        public boolean hasNext() {
+            while (remaining == 0) {
+                pending = nextNode();
+                if (pending == null) {
+                    return false;
+                }
+                remaining = pending.count;
+            }
+            return true;
+        }
+
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return pending.data;
+        }
+    }
+
+    // Inorder over keys in [lo, hi]
+    private static class InorderIterator extends NodeIterator {
+        private final Node[] stack;
+        private int top = 0;
+        private final int hi;
+
+        InorderIterator(Node root, int lo, int hi) {
+            this.stack = new Node[height(root)];
+            this.hi = hi;
+            // keep the path to the first key >= lo, skipping smaller subtrees
+            Node current = root;
+            while (current != null) {
+                if (current.data < lo) {
+                    current = current.right;
+                } else {
+                    stack[top++] = current;
+                    current = current.left;
+                }
+            }
+        }
+
+        Node nextNode() {
+            if (top == 0) {
+                return null;
+            }
+            Node node = stack[--top];
+            if (node.data > hi) {
+                top = 0;
+                return null;
+            }
+            Node current = node.right;
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            return node;
+        }
+    }
+
+    private static class PreorderIterator extends NodeIterator {
+        private final Node[] stack;
+        private int top = 0;
+
+        PreorderIterator(Node root) {
+            this.stack = new Node[height(root) + 1];
+            if (root != null) {
+                stack[top++] = root;
+            }
+        }
+
+        Node nextNode() {
+            if (top == 0) {
+                return null;
+            }
+            Node node = stack[--top];
+            if (node.right != null) {
+                stack[top++] = node.right;
+            }
+            if (node.left != null) {
+                stack[top++] = node.left;
+            }
+            return node;
+        }
+    }
+
+    private static class PostorderIterator extends NodeIterator {
+        private final Node[] stack;
+        private int top = 0;
+        private Node current;
+        private Node lastVisited;
+
+        PostorderIterator(Node root) {
+            this.stack = new Node[height(root)];
+            this.current = root;
+        }
+
+        Node nextNode() {
+            while (current != null || top > 0) {
+                while (current != null) {
+                    stack[top++] = current;
+                    current = current.left;
+                }
+                Node peek = stack[top - 1];
+                if (peek.right != null && peek.right != lastVisited) {
+                    // right subtree not done yet
+                    current = peek.right;
+                } else {
+                    lastVisited = stack[--top];
+                    return lastVisited;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class LevelOrderIterator extends NodeIterator {
+        // circular queue, doubled when full
+        private Node[] queue = new Node[16];
+        private int head = 0;
+        private int length = 0;
+
+        LevelOrderIterator(Node root) {
+            if (root != null) {
+                enqueue(root);
+            }
+        }
+
+        private void enqueue(Node node) {
+            if (length == queue.length) {
+                Node[] bigger = new Node[queue.length * 2];
+                for (int i = 0; i < length; i++) {
+                    bigger[i] = queue[(head + i) % queue.length];
+                }
+                queue = bigger;
+                head = 0;
+            }
+            queue[(head + length) % queue.length] = node;
+            length++;
+        }
+
+        Node nextNode() {
+            if (length == 0) {
+                return null;
+            }
+            Node node = queue[head];
+            queue[head] = null;
+            head = (head + 1) % queue.length;
+            length--;
+            if (node.left != null) {
+                enqueue(node.left);
+            }
+            if (node.right != null) {
+                enqueue(node.right);
+            }
+            return node;
+        }
+    }
+
+    // Covers the keys in [lo, hi]. Splitting picks the highest node whose
+    // key is inside the range and cuts the range there, so each half is a
+    // subtree-aligned piece found with one O(height) descent. Subtree sizes
+    // make both halves exactly SIZED.
+    private static class InorderSpliterator implements Spliterator.OfInt {
+        private final Node root;
+        private int lo;
+        private final int hi;
+        private long remaining; // keys not yet handed out
+        private InorderIterator iterator; // created on first use
+
+        InorderSpliterator(Node root, int lo, int hi) {
+            this.root = root;
+            this.lo = firstKey(root, lo, hi);
+            this.hi = hi;
+            this.remaining = countInRange(root, lo, hi);
+        }
+
+        // Smallest key in [lo, hi], or lo if there is none
+        private static int firstKey(Node root, int lo, int hi) {
+            Node best = null;
+            Node current = root;
+            while (current != null) {
+                if (current.data < lo) {
+                    current = current.right;
+                } else {
+                    best = current;
+                    current = current.left;
+                }
+            }
+            return best != null && best.data <= hi ? best.data : lo;
+        }
+
+        public Spliterator.OfInt trySplit() {
+            if (iterator != null) {
+                return null;
+            }
+            // lo is a key (see firstKey) when the range is non-empty, so a
+            // split key in (lo, hi] leaves both halves non-empty
+            Node current = root;
+            while (current != null && (current.data <= lo || current.data > hi)) {
+                current = current.data <= lo ? current.right : current.left;
+            }
+            if (current == null) {
+                return null;
+            }
+            InorderSpliterator prefix = new InorderSpliterator(root, lo, current.data - 1);
+            lo = current.data;
+            remaining -= prefix.remaining;
+            return prefix;
+        }
+
+        private InorderIterator iterator() {
+            if (iterator == null) {
+                iterator = new InorderIterator(root, lo, hi);
+            }
+            return iterator;
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            InorderIterator it = iterator();
+            if (!it.hasNext()) {
+                return false;
+            }
+            remaining--;
+            action.accept(it.nextInt());
+            return true;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            InorderIterator it = iterator();
+            remaining = 0;
+            it.forEachRemaining(action);
+        }
+
+        public long estimateSize() {
+            return remaining;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        public Comparator<? super Integer> getComparator() {
+            return null; // natural order
+        }
+    }
+
+    // BULK OPERATIONS - build a perfectly balanced tree straight from
+    // sorted (key, count) runs in O(n), instead of n separate inserts
+
+    // Keys must be in non-decreasing order; duplicates become counts.
+    // The result is in balanced mode.
+    public static BST fromSorted(int[] sorted) {
+        int[] runs = new int[2 * sorted.length];
+        int runCount = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0 && sorted[i] < sorted[i - 1]) {
+                throw new IllegalArgumentException("Keys not sorted at index " + i);
+            }
+            if (runCount > 0 && runs[2 * runCount - 2] == sorted[i]) {
+                runs[2 * runCount - 1]++;
+            } else {
+                runs[2 * runCount] = sorted[i];
+                runs[2 * runCount + 1] = 1;
+                runCount++;
+            }
+        }
+        return fromRuns(runs, runCount, true);
+    }
+
+    // Sorts a copy, then builds like fromSorted
+    public static BST fromUnsorted(int[] keys) {
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        return fromSorted(sorted);
+    }
+
+    // Runs are packed like inorderRuns(): key0, count0, key1, count1, ...
+    static BST fromRuns(int[] runs, int runCount, boolean balanced) {
+        BST tree = new BST(balanced);
+        tree.root = build(runs, 0, runCount);
+        tree.size = runCount;
+        tree.total = total(tree.root);
+        return tree;
+    }
+
+    // Middle run becomes the root, so depth is about log2(runs)
+    private static Node build(int[] runs, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = new Node(runs[2 * mid]);
+        node.count = runs[2 * mid + 1];
+        node.left = build(runs, from, mid);
+        node.right = build(runs, mid + 1, to);
+        update(node);
+        return node;
+    }
+
+    // Add every key of 'other' (counts are summed). Big batches are merged
+    // and rebuilt in O(n + m); a few keys are just inserted.
+    public void addAll(BST other) {
+        if (other.size < size / 32) {
+            other.visitInorder((key, count) -> {
+                for (int i = 0; i < count; i++) {
+                    insert(key);
+                }
+            });
+            return;
+        }
+        BST merged = merge(this, other, Integer::sum);
+        root = merged.root;
+        size = merged.size;
+        total = merged.total;
+    }
+
+    // Keys in either tree, count = the larger of the two counts
+    public BST union(BST other) {
+        return merge(this, other, Math::max);
+    }
+
+    // Keys in both trees, count = the smaller of the two counts
+    public BST intersection(BST other) {
+        return merge(this, other, Math::min);
+    }
+
+    // Keys of this tree minus those of 'other', count by count
+    public BST difference(BST other) {
+        return merge(this, other, (a, b) -> a - b);
+    }
+
+    // Linear merge of both inorder runs. 'combine' gets the two counts
+    // (0 when the key is missing on one side); keys whose combined count
+    // is not positive are dropped.
+    private static BST merge(BST a, BST b, IntBinaryOperator combine) {
+        int[] runsA = a.inorderRuns();
+        int[] runsB = b.inorderRuns();
+        int[] runs = new int[runsA.length + runsB.length];
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < runsA.length || j < runsB.length) {
+            int key;
+            int countA = 0;
+            int countB = 0;
+            if (j == runsB.length || (i < runsA.length && runsA[i] < runsB[j])) {
+                key = runsA[i];
+                countA = runsA[i + 1];
+                i += 2;
+            } else if (i == runsA.length || runsB[j] < runsA[i]) {
+                key = runsB[j];
+                countB = runsB[j + 1];
+                j += 2;
+            } else {
+                key = runsA[i];
+                countA = runsA[i + 1];
+                countB = runsB[j + 1];
+                i += 2;
+                j += 2;
+            }
+            int count = combine.applyAsInt(countA, countB);
+            if (count > 0) {
+                runs[out++] = key;
+                runs[out++] = count;
+            }
+        }
+        return fromRuns(runs, out / 2, a.balanced);
+    }
+
+    // BATCH UPDATES - the batch is sorted and folded into the tree in one
+    // left-to-right pass. A finger (the path to the last key touched) is
+    // kept between keys, so the next key only climbs as far as the
+    // nearest ancestor whose key range still holds it and descends from
+    // there; neighbouring keys share almost all of their path. Nodes are
+    // rebalanced once, when the finger leaves their subtree for good.
+    // A batch at least as big as the tree is cheaper to merge and rebuild.
+
+    // Insert every key of the batch (the array itself is left untouched)
+    public void insertAll(int[] keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        if (sorted.length >= size) {
+            addAll(fromSorted(sorted));
+            return;
+        }
+
+        Finger finger = new Finger(root);
+        int i = 0;
+        while (i < sorted.length) {
+            int key = sorted[i];
+            int run = runLength(sorted, i);
+            i += run;
+            total += run;
+
+            Node current = finger.seek(key);
+            if (current == null) {
+                root = newNode(key, run);
+                size++;
+                continue;
+            }
+            while (true) {
+                if (key < current.data) {
+                    if (current.left == null) {
+                        current.left = newNode(key, run);
+                        size++;
+                        break;
+                    }
+                    current = finger.push(current.left, current.data);
+                } else if (key > current.data) {
+                    if (current.right == null) {
+                        current.right = newNode(key, run);
+                        size++;
+                        break;
+                    }
+                    current = finger.push(current.right, finger.bound());
+                } else {
+                    current.count += run;
+                    break;
+                }
+            }
+        }
+        finger.finish();
+    }
+
+    // Remove one occurrence per element of the batch (a key listed three
+    // times loses up to three occurrences). Returns how many were removed.
+    public int removeAll(int[] keys) {
+        if (keys.length == 0 || root == null) {
+            return 0;
+        }
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int before = total;
+        if (sorted.length >= size) {
+            BST rest = merge(this, fromSorted(sorted), (a, b) -> a - b);
+            root = rest.root;
+            size = rest.size;
+            total = rest.total;
+            return before - total;
+        }
+
+        Finger finger = new Finger(root);
+        int i = 0;
+        while (i < sorted.length && root != null) {
+            int key = sorted[i];
+            int run = runLength(sorted, i);
+            i += run;
+
+            Node current = finger.seek(key);
+            while (current != null && key != current.data) {
+                if (key < current.data) {
+                    current = current.left == null ? null : finger.push(current.left, current.data);
+                } else {
+                    current = current.right == null ? null : finger.push(current.right, finger.bound());
+                }
+            }
+            if (current == null) {
+                continue;
+            }
+
+            int removed = Math.min(run, current.count);
+            current.count -= removed;
+            total -= removed;
+            if (current.count == 0) {
+                // everything left of it is already finished and nothing
+                // right of it has been touched, so both sides are valid
+                size--;
+                finger.replaceTop(concat(current.left, current.right));
+            }
+        }
+        finger.finish();
+        return before - total;
+    }
+
+    // Number of copies of sorted[from] starting at 'from'
+    private static int runLength(int[] sorted, int from) {
+        int run = 1;
+        while (from + run < sorted.length && sorted[from + run] == sorted[from]) {
+            run++;
+        }
+        return run;
+    }
+
+    private static Node newNode(int key, int count) {
+        Node node = new Node(key);
+        node.count = count;
+        node.total = count;
+        return node;
+    }
+
+    // Path from the root to the last node a batch touched. bounds[i] is
+    // an exclusive upper limit on the keys under path[i] (long, so the
+    // root's "no limit" fits). Nodes on the path may be stale; they are
+    // fixed bottom-up as they are popped.
+    private final class Finger {
+        private Node[] path;
+        private long[] bounds;
+        private int depth;
+
+        Finger(Node root) {
+            int length = Math.max(16, 2 * height(root));
+            path = new Node[length];
+            bounds = new long[length];
+        }
+
+        // Pop finished subtrees, then return the deepest node on the path
+        // whose subtree can hold 'key' (null when the tree is empty)
+        Node seek(int key) {
+            while (depth > 0 && key >= bounds[depth - 1]) {
+                pop();
+            }
+            if (depth == 0) {
+                if (root == null) {
+                    return null;
+                }
+                push(root, Long.MAX_VALUE);
+            }
+            return path[depth - 1];
+        }
+
+        long bound() {
+            return bounds[depth - 1];
+        }
+
+        Node push(Node node, long bound) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, 2 * depth);
+                bounds = Arrays.copyOf(bounds, 2 * depth);
+            }
+            path[depth] = node;
+            bounds[depth] = bound;
+            depth++;
+            return node;
+        }
+
+        // The subtree below the top node is done: rebalance it and hang
+        // the result back under its parent
+        private void pop() {
+            Node node = path[--depth];
+            path[depth] = null;
+            relink(node, join(node.left, node, node.right));
+        }
+
+        // Swap the top node for an already valid subtree
+        void replaceTop(Node replacement) {
+            Node node = path[--depth];
+            path[depth] = null;
+            relink(node, replacement);
+        }
+
+        private void relink(Node node, Node replacement) {
+            if (depth == 0) {
+                root = replacement;
+            } else {
+                replaceChild(path[depth - 1], node, replacement);
+            }
+        }
+
+        void finish() {
+            while (depth > 0) {
+                pop();
+            }
+        }
+    }
+
+    // Tree of left + node + right, where every key in 'left' is smaller
+    // than node.data and every key in 'right' larger. Heights may differ
+    // by any amount: in balanced mode the shorter side is hung off the
+    // spine of the taller one and fixed on the way back up, which costs
+    // O(height difference) rotations (AVL join).
+    private Node join(Node left, Node node, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (balanced && leftHeight > rightHeight + 1) {
+            // walk down the right spine of 'left' to a matching height
+            Node[] spine = new Node[leftHeight];
+            int depth = 0;
+            Node current = left;
+            while (height(current) > rightHeight + 1) {
+                spine[depth++] = current;
+                current = current.right;
+            }
+            node.left = current;
+            node.right = right;
+            update(node);
+            Node subtree = node;
+            while (depth > 0) {
+                Node parent = spine[--depth];
+                parent.right = subtree;
+                subtree = rebalance(parent);
+            }
+            return subtree;
+        }
+        if (balanced && rightHeight > leftHeight + 1) {
+            // mirror image: down the left spine of 'right'
+            Node[] spine = new Node[rightHeight];
+            int depth = 0;
+            Node current = right;
+            while (height(current) > leftHeight + 1) {
+                spine[depth++] = current;
+                current = current.left;
+            }
+            node.left = left;
+            node.right = current;
+            update(node);
+            Node subtree = node;
+            while (depth > 0) {
+                Node parent = spine[--depth];
+                parent.left = subtree;
+                subtree = rebalance(parent);
+            }
+            return subtree;
+        }
+        node.left = left;
+        node.right = right;
+        update(node);
+        return node;
+    }
+
+    // Tree of all keys in 'left' followed by all keys in 'right': the
+    // smallest node of 'right' is detached and joins the two
+    private Node concat(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        Node[] spine = new Node[right.height];
+        int depth = 0;
+        Node min = right;
+        while (min.left != null) {
+            spine[depth++] = min;
+            min = min.left;
+        }
+        Node rest = min.right;
+        while (depth > 0) {
+            Node parent = spine[--depth];
+            parent.left = rest;
+            rest = rebalance(parent);
+        }
+        return join(left, min, rest);
+    }
+
+    // Immutable copy packed into arrays for fast lookups (see FrozenBST)
+    public FrozenBST freeze() {
+        return new FrozenBST(inorderRuns());
+    }
+
+    // Save as a snapshot file that BSTSnapshot.open() can map read-only
+    public void save(String file) throws IOException {
+        BSTSnapshot.write(this, file);
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    // Get size
+    public int getSize() {
+        return size;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+
+    // Get height (empty tree = 0, single node = 1)
+    public int getHeight() {
+        return height(root);
+    }
+
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    // Main - demo
+    public static void main(String[] args) {
+        BST tree = new BST();
+
+        // Insert: 7, 3, 9, 1, 5, 8, 10, 5, 5
+        tree.insert(7);
+        tree.insert(3);
+        tree.insert(9);
+        tree.insert(1);
+        tree.insert(5);
+        tree.insert(8);
+        tree.insert(10);
+        tree.insert(5);
+        tree.insert(5);
+
+        System.out.println("Inorder  : " + tree.inorder());
+        System.out.println("Preorder : " + tree.preorder());
+        System.out.println("Postorder: " + tree.postorder());
+        System.out.println("Level    : " + tree.levelOrder());
+        System.out.println("Remove 7 : " + tree.remove(7) + " -> " + tree.inorder());
+        System.out.println("Remove 5 : " + tree.remove(5) + " -> " + tree.inorder());
+    }
+}
\ No newline at end of file
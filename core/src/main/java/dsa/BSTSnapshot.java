@@ -0,0 +1,179 @@
+// BSTSnapshot.java - Read-only BST backed by a memory-mapped file
+//
+// BST.save() writes the tree's sorted (key, count) runs to a file:
+//
+//   int magic ("BSTS"), int version, int runs, int total   (16-byte header)
+//   int keys[runs]                                         (sorted)
+//   int counts[runs]
+//
+// all big-endian. BSTSnapshot.open() maps that file with FileChannel.map
+// and answers queries straight from the mapped pages - nothing is
+// deserialized, so opening is instant and the OS page cache is shared
+// between processes. Keys sit in one contiguous block, which is what
+// binary search wants. Call thaw() for a normal, mutable BST.
+package dsa;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+
+public class BSTSnapshot {
+    static final int MAGIC = 0x42535453; // "BSTS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int runs; // distinct keys
+    private final int total; // keys, counting duplicates
+    private final int countsOffset;
+
+    private BSTSnapshot(MappedByteBuffer buffer, int runs, int total) {
+        this.buffer = buffer;
+        this.runs = runs;
+        this.total = total;
+        this.countsOffset = HEADER_BYTES + 4 * runs;
+    }
+
+    // Write the tree in snapshot format
+    static void write(BST tree, String file) throws IOException {
+        int[] runs = tree.inorderRuns();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(runs.length / 2);
+            out.writeInt(tree.getTotal());
+            for (int i = 0; i < runs.length; i += 2) {
+                out.writeInt(runs[i]);
+            }
+            for (int i = 1; i < runs.length; i += 2) {
+                out.writeInt(runs[i]);
+            }
+        }
+    }
+
+    // Map a snapshot file read-only. The mapping stays valid after the
+    // channel is closed and is released when this object is collected.
+    public static BSTSnapshot open(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + length + " bytes");
+            }
+            if (length < HEADER_BYTES) {
+                throw new IOException("Not a BST snapshot: " + file);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a BST snapshot: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+            }
+            int runs = buffer.getInt(8);
+            int total = buffer.getInt(12);
+            if (runs < 0 || HEADER_BYTES + 8L * runs != length) {
+                throw new IOException("Truncated or corrupt snapshot: " + file);
+            }
+            return new BSTSnapshot(buffer, runs, total);
+        }
+    }
+
+    private int keyAt(int i) {
+        return buffer.getInt(HEADER_BYTES + 4 * i);
+    }
+
+    private int countAt(int i) {
+        return buffer.getInt(countsOffset + 4 * i);
+    }
+
+    // Index of the first run with key >= 'key' (runs if none)
+    private int lowerBound(int key) {
+        int lo = 0;
+        int hi = runs;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyAt(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        int i = lowerBound(data);
+        return i < runs && keyAt(i) == data;
+    }
+
+    // How many times 'data' was inserted (0 if absent)
+    public int count(int data) {
+        int i = lowerBound(data);
+        return i < runs && keyAt(i) == data ? countAt(i) : 0;
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public Integer floor(int key) {
+        int i = lowerBound(key);
+        if (i < runs && keyAt(i) == key) {
+            return key;
+        }
+        return i == 0 ? null : keyAt(i - 1);
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public Integer ceiling(int key) {
+        int i = lowerBound(key);
+        return i == runs ? null : keyAt(i);
+    }
+
+    // INORDER: sorted keys, (key, count) once per distinct key
+    public void visitInorder(BST.KeyCountVisitor visitor) {
+        for (int i = 0; i < runs; i++) {
+            visitor.visit(keyAt(i), countAt(i));
+        }
+    }
+
+    public void forEachInorder(IntConsumer action) {
+        visitInorder(BST.expand(action));
+    }
+
+    public int[] inorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitInorder(filler);
+        return filler.values;
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitInorder(BST.addTo(list));
+        return list;
+    }
+
+    // Mutable, balanced copy of the snapshot
+    public BST thaw() {
+        BST.RunFiller filler = new BST.RunFiller(runs);
+        visitInorder(filler);
+        return BST.fromRuns(filler.runs, runs, true);
+    }
+
+    // Get size (distinct keys)
+    public int getSize() {
+        return runs;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,378 @@
+// CompiledExpr.java - Expression compiled to flat postfix bytecode
+//
+// Expr.compile() walks the tree once and emits one int per node: an
+// opcode in the low 4 bits and, for constants, variables and calls, an
+// index in the rest. Variables are resolved to slot numbers at compile
+// time, so evaluating is a loop over an int[] that pushes and pops a
+// double[] stack - no maps, no boxing, no allocation.
+//
+//   CompiledExpr f = Expr.parseInfix("a * x + b").compile("x", "a", "b");
+//   double y = f.evaluate(new double[] {x, a, b});
+//
+// The four arithmetic operators, ^ and unary minus get their own opcodes;
+// anything registered in an OperatorTable is called through Operator.
+// A node shared by several parents (after Expr.optimize()) is computed
+// once, stored in a temp slot past the top of the stack, and reloaded
+// from there for its other uses.
+//
+// evaluate(double[][], double[]) is the vectorized mode: one column per
+// slot, one row per binding. It runs each instruction over a block of
+// rows at a time, so the inner loops are simple array loops the JIT can
+// turn into SIMD code.
+//
+// evaluate(double[]) reuses a stack inside the object, so one instance
+// must not be shared between threads that call it; evaluate(values,
+// stack) with a stack per thread is safe.
+package dsa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+public final class CompiledExpr {
+    private static final int CONST = 0;
+    private static final int LOAD = 1;
+    private static final int ADD = 2;
+    private static final int SUBTRACT = 3;
+    private static final int MULTIPLY = 4;
+    private static final int DIVIDE = 5;
+    private static final int POWER = 6;
+    private static final int NEGATE = 7;
+    private static final int CALL = 8;
+    private static final int STORE = 9; // copy the top of the stack into a temp
+    private static final int LOAD_TEMP = 10;
+    private static final int OPCODE_BITS = 4;
+    private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    // Rows per block in vectorized mode - a few KB per stack entry, so the
+    // working set stays in L1/L2
+    private static final int BLOCK = 512;
+
+    private final String[] slots;
+    private final int[] code;
+    private final double[] constants;
+    private final Operator[] calls;
+    private final int tempBase; // temps live at stack[tempBase ...]
+    private final int stackSize;
+    private final double[] stack;
+
+    CompiledExpr(Expr expr, String[] slots) {
+        this.slots = slots;
+        HashMap<String, Integer> slotOf = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slotOf.put(slots[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate slot " + slots[i]);
+            }
+        }
+
+        Emitter emitter = new Emitter(slotOf, expr);
+        emitter.emitAll(expr);
+        this.code = Arrays.copyOf(emitter.code, emitter.codeLength);
+        this.constants = Arrays.copyOf(emitter.constants, emitter.constantCount);
+        this.calls = Arrays.copyOf(emitter.calls, emitter.callCount);
+        this.tempBase = emitter.maxDepth;
+        this.stackSize = Math.max(1, emitter.maxDepth + emitter.tempCount);
+        this.stack = new double[stackSize];
+    }
+
+    // Builds the instruction arrays in one postfix-order walk: a node's
+    // operands are on the stack by the time its instruction runs
+    private static final class Emitter {
+        private final HashMap<String, Integer> slotOf;
+        private final IdentityHashMap<Expr, Integer> uses = new IdentityHashMap<>();
+        private final IdentityHashMap<Expr, Integer> tempOf = new IdentityHashMap<>();
+        int[] code = new int[16];
+        int codeLength;
+        double[] constants = new double[4];
+        int constantCount;
+        Operator[] calls = new Operator[4];
+        int callCount;
+        int tempCount;
+        int depth;
+        int maxDepth;
+
+        Emitter(HashMap<String, Integer> slotOf, Expr expr) {
+            this.slotOf = slotOf;
+            // how many parents each distinct node has
+            expr.visitDag(node -> {
+                for (int i = 0; i < node.argCount(); i++) {
+                    uses.merge(node.arg(i), 1, Integer::sum);
+                }
+            });
+        }
+
+        void emitAll(Expr root) {
+            Expr[] nodes = new Expr[16];
+            int[] next = new int[16];
+            int top = 0;
+            nodes[top] = root;
+            next[top++] = 0;
+            while (top > 0) {
+                Expr node = nodes[top - 1];
+                int child = next[top - 1];
+                if (child < node.argCount()) {
+                    next[top - 1]++;
+                    Expr childNode = node.arg(child);
+                    Integer temp = tempOf.get(childNode);
+                    if (temp != null) {
+                        // shared and already computed
+                        add(LOAD_TEMP, temp);
+                        push();
+                        continue;
+                    }
+                    if (top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * top);
+                        next = Arrays.copyOf(next, 2 * top);
+                    }
+                    nodes[top] = childNode;
+                    next[top++] = 0;
+                } else {
+                    nodes[--top] = null;
+                    emit(node);
+                    if (uses.getOrDefault(node, 0) > 1) {
+                        tempOf.put(node, tempCount);
+                        add(STORE, tempCount++);
+                    }
+                }
+            }
+        }
+
+        private void emit(Expr node) {
+            switch (node.kind) {
+                case NUMBER:
+                    if (constantCount == constants.length) {
+                        constants = Arrays.copyOf(constants, 2 * constantCount);
+                    }
+                    constants[constantCount] = node.value;
+                    add(CONST, constantCount++);
+                    push();
+                    break;
+                case VARIABLE: {
+                    Integer slot = slotOf.get(node.text);
+                    if (slot == null) {
+                        throw new IllegalArgumentException("No slot for variable " + node.text);
+                    }
+                    add(LOAD, slot);
+                    push();
+                    break;
+                }
+                default:
+                    Operator op = node.op;
+                    int opcode = builtin(op);
+                    if (opcode < 0) {
+                        if (callCount == calls.length) {
+                            calls = Arrays.copyOf(calls, 2 * callCount);
+                        }
+                        calls[callCount] = op;
+                        add(CALL, callCount++);
+                    } else {
+                        add(opcode, 0);
+                    }
+                    depth -= op.arity;
+                    push();
+                    break;
+            }
+        }
+
+        private void push() {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private void add(int opcode, int index) {
+            if (codeLength == code.length) {
+                code = Arrays.copyOf(code, 2 * codeLength);
+            }
+            code[codeLength++] = (index << OPCODE_BITS) | opcode;
+        }
+
+        private static int builtin(Operator op) {
+            if (op == Operator.ADD) {
+                return ADD;
+            } else if (op == Operator.SUBTRACT) {
+                return SUBTRACT;
+            } else if (op == Operator.MULTIPLY) {
+                return MULTIPLY;
+            } else if (op == Operator.DIVIDE) {
+                return DIVIDE;
+            } else if (op == Operator.POWER) {
+                return POWER;
+            } else if (op == Operator.NEGATE) {
+                return NEGATE;
+            }
+            return -1;
+        }
+    }
+
+    // Variable names by slot
+    public String[] variables() {
+        return slots.clone();
+    }
+
+    // Slot of a variable, or -1
+    public int slot(String name) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Stack entries evaluate(values, stack) needs
+    public int stackSize() {
+        return stackSize;
+    }
+
+    // Value for one binding, values[slot] per variable. Not thread-safe.
+    public double evaluate(double... values) {
+        return evaluate(values, stack);
+    }
+
+    // Value for one binding, using the caller's stack (at least stackSize())
+    public double evaluate(double[] values, double[] stack) {
+        int[] code = this.code;
+        int sp = 0;
+        for (int i = 0; i < code.length; i++) {
+            int instruction = code[i];
+            switch (instruction & OPCODE_MASK) {
+                case CONST:
+                    stack[sp++] = constants[instruction >>> OPCODE_BITS];
+                    break;
+                case LOAD:
+                    stack[sp++] = values[instruction >>> OPCODE_BITS];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case SUBTRACT:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case MULTIPLY:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case DIVIDE:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case POWER:
+                    sp--;
+                    stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]);
+                    break;
+                case NEGATE:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                case STORE:
+                    stack[tempBase + (instruction >>> OPCODE_BITS)] = stack[sp - 1];
+                    break;
+                case LOAD_TEMP:
+                    stack[sp++] = stack[tempBase + (instruction >>> OPCODE_BITS)];
+                    break;
+                default: {
+                    Operator op = calls[instruction >>> OPCODE_BITS];
+                    sp -= op.arity;
+                    stack[sp] = op.apply(stack, sp);
+                    sp++;
+                    break;
+                }
+            }
+        }
+        return stack[0];
+    }
+
+    // Vectorized: out[row] = value for columns[slot][row], for every row
+    // of 'out'. Each column needs at least out.length rows.
+    public void evaluate(double[][] columns, double[] out) {
+        int rows = out.length;
+        if (columns.length < slots.length) {
+            throw new IllegalArgumentException("Need " + slots.length + " columns, got " + columns.length);
+        }
+        for (int s = 0; s < slots.length; s++) {
+            if (columns[s].length < rows) {
+                throw new IllegalArgumentException("Column " + slots[s] + " has fewer than " + rows + " rows");
+            }
+        }
+
+        double[][] blocks = new double[stackSize][Math.min(BLOCK, Math.max(rows, 1))];
+        double[] args = new double[maxArity()];
+        for (int base = 0; base < rows; base += BLOCK) {
+            int length = Math.min(BLOCK, rows - base);
+            int sp = 0;
+            for (int i = 0; i < code.length; i++) {
+                int instruction = code[i];
+                int opcode = instruction & OPCODE_MASK;
+                if (opcode == CONST) {
+                    Arrays.fill(blocks[sp++], 0, length, constants[instruction >>> OPCODE_BITS]);
+                } else if (opcode == LOAD) {
+                    System.arraycopy(columns[instruction >>> OPCODE_BITS], base, blocks[sp++], 0, length);
+                } else if (opcode == STORE) {
+                    System.arraycopy(blocks[sp - 1], 0, blocks[tempBase + (instruction >>> OPCODE_BITS)], 0, length);
+                } else if (opcode == LOAD_TEMP) {
+                    System.arraycopy(blocks[tempBase + (instruction >>> OPCODE_BITS)], 0, blocks[sp++], 0, length);
+                } else if (opcode == NEGATE) {
+                    double[] a = blocks[sp - 1];
+                    for (int r = 0; r < length; r++) {
+                        a[r] = -a[r];
+                    }
+                } else if (opcode == CALL) {
+                    Operator op = calls[instruction >>> OPCODE_BITS];
+                    sp -= op.arity;
+                    double[] result = blocks[sp];
+                    for (int r = 0; r < length; r++) {
+                        for (int k = 0; k < op.arity; k++) {
+                            args[k] = blocks[sp + k][r];
+                        }
+                        result[r] = op.apply(args, 0);
+                    }
+                    sp++;
+                } else {
+                    sp--;
+                    binaryBlock(opcode, blocks[sp - 1], blocks[sp], length);
+                }
+            }
+            System.arraycopy(blocks[0], 0, out, base, length);
+        }
+    }
+
+    // a[r] = a[r] op b[r]; one loop per opcode keeps each loop vectorizable
+    private static void binaryBlock(int opcode, double[] a, double[] b, int length) {
+        switch (opcode) {
+            case ADD:
+                for (int r = 0; r < length; r++) {
+                    a[r] += b[r];
+                }
+                break;
+            case SUBTRACT:
+                for (int r = 0; r < length; r++) {
+                    a[r] -= b[r];
+                }
+                break;
+            case MULTIPLY:
+                for (int r = 0; r < length; r++) {
+                    a[r] *= b[r];
+                }
+                break;
+            case DIVIDE:
+                for (int r = 0; r < length; r++) {
+                    a[r] /= b[r];
+                }
+                break;
+            default:
+                for (int r = 0; r < length; r++) {
+                    a[r] = Math.pow(a[r], b[r]);
+                }
+                break;
+        }
+    }
+
+    private int maxArity() {
+        int arity = 0;
+        for (Operator op : calls) {
+            arity = Math.max(arity, op.arity);
+        }
+        return arity;
+    }
+}
@@ -0,0 +1,148 @@
+// ConcurrentBST.java - Sorted multiset that many threads can update at once
+//
+// Same idea as BST (one entry per distinct key, with a count for
+// duplicates), but stored in a lock-free skip list so that readers never
+// block and writers only contend when they touch the same key.
+//
+// Traversals are weakly consistent: they see every key that was present
+// for the whole traversal, may or may not see keys inserted or removed
+// while it runs, and never throw ConcurrentModificationException.
+// A skip list has no tree shape, so only the sorted (inorder) traversals
+// exist here.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+public class ConcurrentBST {
+    // A count of 0 marks an entry that is being unlinked; it is never
+    // incremented again, the next insert replaces it with a fresh counter
+    private final ConcurrentSkipListMap<Integer, AtomicInteger> map = new ConcurrentSkipListMap<>();
+    private final LongAdder size = new LongAdder(); // number of distinct keys
+    private final LongAdder total = new LongAdder(); // number of keys, counting duplicates
+
+    // Insert a number
+    public void insert(int data) {
+        Integer key = data;
+        while (true) {
+            AtomicInteger count = map.get(key);
+            if (count == null) {
+                if (map.putIfAbsent(key, new AtomicInteger(1)) == null) {
+                    size.increment();
+                    break;
+                }
+                continue; // someone else added it first
+            }
+
+            int current = count.get();
+            if (current == 0) {
+                // dead entry, help unlink it and retry
+                map.remove(key, count);
+            } else if (count.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        total.increment();
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        AtomicInteger count = map.get(data);
+        return count != null && count.get() > 0;
+    }
+
+    // Remove one occurrence of a number
+    public boolean remove(int data) {
+        Integer key = data;
+        while (true) {
+            AtomicInteger count = map.get(key);
+            if (count == null) {
+                return false;
+            }
+
+            int current = count.get();
+            if (current == 0) {
+                map.remove(key, count);
+            } else if (count.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    // last occurrence - unlink the dead entry
+                    map.remove(key, count);
+                    size.decrement();
+                }
+                total.decrement();
+                return true;
+            }
+        }
+    }
+
+    // Get size (distinct keys)
+    public int getSize() {
+        return size.intValue();
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total.intValue();
+    }
+
+    // INORDER: sorted keys, (key, count) once per distinct key
+    public void visitInorder(BST.KeyCountVisitor visitor) {
+        for (Map.Entry<Integer, AtomicInteger> entry : map.entrySet()) {
+            int count = entry.getValue().get();
+            if (count > 0) {
+                visitor.visit(entry.getKey(), count);
+            }
+        }
+    }
+
+    public void forEachInorder(IntConsumer action) {
+        visitInorder((key, count) -> {
+            for (int i = 0; i < count; i++) {
+                action.accept(key);
+            }
+        });
+    }
+
+    public int[] inorderArray() {
+        // the size can change while we walk, so collect first
+        IntArrayBuilder builder = new IntArrayBuilder(getTotal());
+        forEachInorder(builder::add);
+        return builder.toArray();
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(getTotal());
+        forEachInorder(list::add);
+        return list;
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    private static class IntArrayBuilder {
+        int[] values;
+        int length = 0;
+
+        IntArrayBuilder(int capacity) {
+            values = new int[Math.max(capacity, 16)];
+        }
+
+        void add(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[length++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, length);
+        }
+    }
+}
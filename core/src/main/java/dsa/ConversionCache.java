@@ -0,0 +1,170 @@
+// ConversionCache.java - Bounded cache of conversion results
+//
+// Expression corpora repeat themselves, so converting the same text twice
+// is common. The cache maps input text to converted text:
+//
+//   ConversionCache cache = new ConversionCache(10_000);
+//   String postfix = cache.get(infix, Expressions::infixToPostfix);
+//
+// One cache holds the results of one conversion (one mode, optimized or
+// not); give each converter its own.
+//
+// The entries are split over stripes by hash. Each stripe is a small LRU
+// map (LinkedHashMap in access order) with its own lock, so concurrent
+// callers only contend when they hit the same stripe - there is no global
+// lock. The conversion itself runs outside any lock; two threads missing
+// on the same text at once may both convert it, which is harmless.
+//
+// Hits, misses and evictions are counted with LongAdders. A conversion
+// that throws is not cached and counts as a miss. With Metrics on, a
+// FileConverter also reports its cache's lookups to the ConversionMetrics
+// of its mode.
+package dsa;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+public final class ConversionCache {
+    private static final int MAX_STRIPES = 64;
+    private static final int MIN_STRIPE_SIZE = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeShift; // 32 - log2(stripes.length)
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile ConversionMetrics metrics; // also counts hits and misses, or null
+
+    // Holds up to 'capacity' results (each stripe an equal share, so a
+    // little less when it does not divide evenly)
+    public ConversionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1, got " + capacity);
+        }
+        int count = 1;
+        while (count < MAX_STRIPES && capacity / (2 * count) >= MIN_STRIPE_SIZE) {
+            count *= 2;
+        }
+        this.capacity = capacity;
+        this.stripes = new Stripe[count];
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+        int share = capacity / count;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(share);
+        }
+    }
+
+    // One stripe: an LRU map that counts what it throws out
+    private final class Stripe extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+        private final int limit;
+
+        Stripe(int limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > limit) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Cached result for 'input', converting (and caching) it on a miss
+    public String get(String input, UnaryOperator<String> convert) {
+        Stripe stripe = stripeOf(input);
+        String result;
+        synchronized (stripe) {
+            result = stripe.get(input);
+        }
+        if (result != null) {
+            hits.increment();
+            if (Metrics.ENABLED) {
+                reportLookup(true);
+            }
+            return result;
+        }
+        misses.increment();
+        if (Metrics.ENABLED) {
+            reportLookup(false);
+        }
+        result = convert.apply(input);
+        synchronized (stripe) {
+            stripe.put(input, result);
+        }
+        return result;
+    }
+
+    // Have 'metrics' count hits and misses from now on
+    void reportTo(ConversionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void reportLookup(boolean hit) {
+        ConversionMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return;
+        } else if (hit) {
+            metrics.cacheHit();
+        } else {
+            metrics.cacheMiss();
+        }
+    }
+
+    // Picked by the top bits of a mixed hash: the stripe's own HashMap
+    // indexes by the low bits, which must not be the same for every key
+    private Stripe stripeOf(String input) {
+        long h = (input.hashCode() * 0x9E3779B9) & 0xFFFFFFFFL;
+        return stripes[(int) (h >>> stripeShift)]; // long shift: by 32 gives 0
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Entries held right now
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        long hits = hits();
+        long total = hits + misses();
+        return String.format("hits=%d misses=%d evictions=%d hit rate=%.1f%%", hits, total - hits, evictions(),
+                total == 0 ? 0.0 : 100.0 * hits / total);
+    }
+}
@@ -0,0 +1,169 @@
+// ConversionMetrics.java - Counters and latencies for one conversion mode
+//
+// Metrics.INFIX_TO_POSTFIX and Metrics.POSTFIX_TO_INFIX are fed by the
+// Expressions conversion methods (and so by convertFile and the server)
+// when metrics are on; with them off nothing here is ever called.
+//
+// An error is counted by kind - its message without the parts that come
+// from the input ("Not enough operands for +" is "Not enough operands") -
+// so the map stays small whatever the input.
+package dsa;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ConversionMetrics implements ConversionMetricsMXBean {
+    // Messages Expressions throws, up to where the input shows up
+    private static final String[] KINDS = {
+        "Mismatched parentheses", "Expected ( after", "Unexpected , outside a function call",
+        "Not enough operands", "Invalid postfix expression", "Missing operator",
+        "Missing operand",
+    };
+
+    private final String mode;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    ConversionMetrics(String mode) {
+        this.mode = mode;
+    }
+
+    public String mode() {
+        return mode;
+    }
+
+    // A conversion of 'tokenCount' tokens finished in 'nanos'
+    void converted(int tokenCount, long nanos) {
+        tokens.add(tokenCount);
+        latency.record(nanos);
+    }
+
+    void failed(RuntimeException e) {
+        errors.increment();
+        errorCounts.computeIfAbsent(kindOf(e), kind -> new LongAdder()).increment();
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    static String kindOf(RuntimeException e) {
+        String message = e.getMessage();
+        if (message == null) {
+            return e.getClass().getSimpleName();
+        }
+        for (String kind : KINDS) {
+            if (message.startsWith(kind)) {
+                return kind;
+            }
+        }
+        if (message.contains(" takes ")) {
+            return "Wrong number of arguments"; // "max takes 2 argument(s), got 1"
+        }
+        if (message.startsWith("Unexpected ")) {
+            return "Unexpected token";
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    // The histogram behind the latency figures
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public long getConversions() {
+        return latency.count();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorCounts.forEach((kind, count) -> counts.put(kind, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getTokens() {
+        return tokens.sum();
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        double seconds = latency.mean() * latency.count() / 1e9;
+        return seconds == 0 ? 0.0 : tokens.sum() / seconds;
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return latency.mean();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.percentile(50.0);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return latency.percentile(90.0);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.percentile(99.0);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.percentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.max();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        tokens.reset();
+        errors.reset();
+        errorCounts.clear();
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: conversions=%d errors=%d %s tokens/s=%.0f p50=%dns p99=%dns max=%dns"
+                + " cache hits=%d misses=%d", mode, getConversions(), getErrors(), getErrorCounts(),
+                getTokensPerSecond(), getP50Nanos(), getP99Nanos(), getMaxNanos(), getCacheHits(),
+                getCacheMisses());
+    }
+}
@@ -0,0 +1,41 @@
+// ConversionMetricsMXBean.java - What ConversionMetrics shows over JMX
+//
+// Registered as dsa:type=Conversion,name=<mode> when metrics are on (see
+// Metrics). Times are in nanoseconds.
+package dsa;
+
+import java.util.Map;
+
+public interface ConversionMetricsMXBean {
+    // Conversions that finished, and those that threw
+    long getConversions();
+
+    long getErrors();
+
+    // Errors by kind, e.g. "Mismatched parentheses" -> 3
+    Map<String, Long> getErrorCounts();
+
+    // Tokens read by finished conversions, and per second spent converting
+    long getTokens();
+
+    double getTokensPerSecond();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+
+    // Lookups in ConversionCaches of this mode (convertFile --cache, server)
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    void reset();
+}
@@ -0,0 +1,243 @@
+// ConversionServer.java - Long-running conversion service
+//
+// Keeps one warm JVM around for many small conversions instead of
+// starting a new one per file. A client sends newline-delimited requests
+// and gets one response line per request, in the same order:
+//
+//   infix2postfix a * (b + c)      ->  a b c + *
+//   postfix2infix a b c + *        ->  a * (b + c)
+//   infix2postfix (x               ->  # Error on line 3: Mismatched parentheses
+//
+// A blank request gets a blank response. Error line numbers count the
+// non-empty requests on that connection, as in ConvertFile output.
+//
+// Requests are batched: every request that has already arrived (up to
+// BATCH_LINES of them) is read into one batch and converted together,
+// then the responses go out in one write and flush. A batch of
+// PARALLEL_BATCH requests or more is split into one slice per worker
+// thread, and the slices are converted in parallel and written back in
+// order. A client that pipelines many requests therefore costs one
+// flush per batch rather than one per line and gets all the cores, and
+// a lone request is still answered at once on its connection's thread.
+// Each connection runs on its own thread from a cached pool (Java 17 has
+// no virtual threads); connections are independent, so many clients
+// convert in parallel too.
+//
+//   java dsa.ConvertFile --serve 7070     (localhost only)
+//   java dsa.ConvertFile --serve -        (stdin / stdout)
+package dsa;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class ConversionServer implements Closeable {
+    // A batch ends after this many requests or characters, even if more
+    // requests have already arrived
+    private static final int BATCH_LINES = 1024;
+    private static final int BATCH_CHARS = 1 << 16;
+    // Smaller batches are converted on the connection's own thread
+    private static final int PARALLEL_BATCH = 64;
+
+    private final FileConverter toPostfix;
+    private final FileConverter toInfix;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "conversion-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int threads;
+    private final ExecutorService workers; // converts batch slices; null with one thread
+    private volatile ServerSocket socket;
+
+    // optimize folds constants and simplifies (see ExprOptimizer)
+    public ConversionServer(boolean optimize) {
+        this(optimize, 0);
+    }
+
+    // With a ConversionCache of 'cacheSize' results per mode (0 for none),
+    // shared by all connections
+    public ConversionServer(boolean optimize, int cacheSize) {
+        this(optimize, cacheSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Large batches are converted on 'threads' worker threads, shared by
+    // all connections
+    public ConversionServer(boolean optimize, int cacheSize, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.toPostfix = new FileConverter("infix2postfix", optimize, 1,
+                cacheSize > 0 ? new ConversionCache(cacheSize) : null);
+        this.toInfix = new FileConverter("postfix2infix", optimize, 1,
+                cacheSize > 0 ? new ConversionCache(cacheSize) : null);
+        this.threads = threads;
+        this.workers = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "conversion-worker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    // Cache statistics per mode, or "" without a cache
+    public String cacheStats() {
+        if (toPostfix.cache() == null) {
+            return "";
+        }
+        return "infix2postfix " + toPostfix.cache() + ", postfix2infix " + toInfix.cache();
+    }
+
+    // Start accepting connections on localhost; returns the port (useful
+    // with port 0, which picks a free one). Returns at once - the server
+    // runs on its own threads until close().
+    public int listen(int port) throws IOException {
+        ServerSocket server = bind(port);
+        connections.execute(() -> accept(server));
+        return server.getLocalPort();
+    }
+
+    // Accept connections on localhost on the calling thread, until close()
+    public void serve(int port) throws IOException {
+        accept(bind(port));
+    }
+
+    private ServerSocket bind(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        socket = server;
+        return server;
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            Socket client;
+            try {
+                client = server.accept();
+            } catch (IOException e) {
+                break; // closed
+            }
+            connections.execute(() -> {
+                try (Socket connection = client) {
+                    connection.setTcpNoDelay(true); // answers are small and latency matters
+                    serve(connection.getInputStream(), connection.getOutputStream());
+                } catch (SocketException e) {
+                    // client went away
+                } catch (IOException e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Answer requests from 'in' on 'out' until 'in' ends (neither is closed)
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        String[] batch = new String[BATCH_LINES];
+        int count = 0;
+        int chars = 0;
+        int lineNum = 1; // number of the next non-empty request
+        String line;
+        while ((line = reader.readLine()) != null) {
+            batch[count++] = line;
+            chars += line.length();
+            if (count == BATCH_LINES || chars >= BATCH_CHARS || !reader.ready()) {
+                lineNum = answerBatch(batch, count, lineNum, writer);
+                writer.flush();
+                count = 0;
+                chars = 0;
+            }
+        }
+        answerBatch(batch, count, lineNum, writer);
+        writer.flush();
+    }
+
+    // Writes the responses to requests[0 .. count), in order; returns the
+    // number of the next non-empty request
+    private int answerBatch(String[] requests, int count, int lineNum, Writer writer) throws IOException {
+        if (workers == null || count < PARALLEL_BATCH) {
+            StringBuilder out = new StringBuilder();
+            lineNum = answerAll(requests, 0, count, lineNum, out);
+            writer.append(out);
+            return lineNum;
+        }
+        int slices = Math.min(threads, count / (PARALLEL_BATCH / 2));
+        @SuppressWarnings("unchecked")
+        Future<String>[] results = new Future[slices];
+        for (int s = 0; s < slices; s++) {
+            int from = (int) ((long) count * s / slices);
+            int to = (int) ((long) count * (s + 1) / slices);
+            int first = lineNum;
+            results[s] = workers.submit(() -> {
+                StringBuilder out = new StringBuilder();
+                answerAll(requests, from, to, first, out);
+                return out.toString();
+            });
+            for (int i = from; i < to; i++) {
+                if (!FileConverter.isBlank(requests[i])) {
+                    lineNum++;
+                }
+            }
+        }
+        for (Future<String> result : results) {
+            writer.write(FileConverter.result(result));
+        }
+        return lineNum;
+    }
+
+    // Appends the responses to requests[from .. to), each ending in a
+    // newline; returns the number of the next non-empty request
+    private int answerAll(String[] requests, int from, int to, int lineNum, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            if (!FileConverter.isBlank(requests[i])) {
+                answer(requests[i].trim(), lineNum++, out);
+            }
+            out.append('\n');
+        }
+        return lineNum;
+    }
+
+    // Appends the response to one request: "<mode> <expression>", the two
+    // separated by any run of spaces or tabs
+    private void answer(String request, int lineNum, StringBuilder out) {
+        int split = 0;
+        while (split < request.length() && !ExprLexer.isSpace(request.charAt(split))) {
+            split++;
+        }
+        String mode = request.substring(0, split);
+        String expression = request.substring(split).trim();
+        if (mode.equals("infix2postfix")) {
+            toPostfix.convertLine(expression, lineNum, out);
+        } else if (mode.equals("postfix2infix")) {
+            toInfix.convertLine(expression, lineNum, out);
+        } else {
+            out.append("# Error on line ").append(lineNum).append(": Unknown mode ").append(mode);
+        }
+    }
+
+    // Stop accepting; open connections are closed with the JVM (daemon threads)
+    @Override
+    public void close() throws IOException {
+        ServerSocket server = socket;
+        if (server != null) {
+            server.close();
+        }
+        connections.shutdownNow();
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+convert_file.py — Command-line interface for converting expressions in a text file.
+
+Usage:
+  # Convert infix (one per line) to postfix:
+  python convert_file.py --mode infix2postfix --input exercises/sample_input/infix.txt --output out_postfix.txt
+
+  # Convert postfix (one per line) to infix:
+  python convert_file.py --mode postfix2infix --input exercises/sample_input/postfix.txt --output out_infix.txt
+
+  # Add --optimize to fold constants and simplify while converting,
+  # --threads N to convert on N threads (default: one per CPU)
+  # Inputs of 1 MB and up are memory-mapped rather than read line by line.
+  # --cache N keeps the results of N distinct lines for repeated input.
+
+  # "-" is stdin / stdout, so it can sit in a pipeline:
+  generate_exprs | java dsa.ConvertFile --mode infix2postfix --input - --output - | consume
+
+  # Server mode: requests "<mode> <expression>", one per line, on a
+  # localhost port or on stdin (see ConversionServer)
+  java dsa.ConvertFile --serve 7070
+
+  # Run the JVM with -Ddsa.metrics=true for conversion metrics over JMX
+  # (and a summary on stderr after a file); see Metrics
+*/
+
+// ConvertFile.java - Convert expression files
+package dsa;
+
+import java.io.IOException;
+
+public class ConvertFile {
+
+  public static void main(String[] args) {
+    String mode = null;
+    String input = null;
+    String output = null;
+    boolean optimize = false;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String serve = null;
+    int cacheSize = 0;
+
+    // Read command line arguments
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--mode") && i + 1 < args.length) {
+        mode = args[i + 1];
+        i++;
+      } else if (args[i].equals("--input") && i + 1 < args.length) {
+        input = args[i + 1];
+        i++;
+      } else if (args[i].equals("--output") && i + 1 < args.length) {
+        output = args[i + 1];
+        i++;
+      } else if (args[i].equals("--optimize")) {
+        optimize = true;
+      } else if (args[i].equals("--threads") && i + 1 < args.length) {
+        try {
+          threads = Integer.parseInt(args[i + 1]);
+        } catch (NumberFormatException e) {
+          threads = 0;
+        }
+        i++;
+      } else if (args[i].equals("--cache") && i + 1 < args.length) {
+        try {
+          cacheSize = Integer.parseInt(args[i + 1]);
+        } catch (NumberFormatException e) {
+          cacheSize = -1;
+        }
+        i++;
+      } else if (args[i].equals("--serve") && i + 1 < args.length) {
+        serve = args[i + 1];
+        i++;
+      }
+    }
+
+    // Check cache size
+    if (cacheSize < 0) {
+      System.out.println("Error: cache must be a number of entries");
+      return;
+    }
+
+    // Check threads
+    if (threads < 1) {
+      System.out.println("Error: threads must be a positive number");
+      return;
+    }
+
+    // Server mode
+    if (serve != null) {
+      serve(serve, optimize, cacheSize, threads);
+      return;
+    }
+
+    // Check if all arguments are provided
+    if (mode == null || input == null || output == null) {
+      System.out.println("Usage: java dsa.ConvertFile --mode <mode> --input <file> --output <file> [--optimize] [--threads <n>] [--cache <n>]");
+      System.out.println("  mode: infix2postfix or postfix2infix");
+      System.out.println("  input: input file path, or - for stdin");
+      System.out.println("  output: output file path, or - for stdout");
+      System.out.println("  optimize: fold constants and simplify");
+      System.out.println("  threads: conversion threads (default: one per CPU)");
+      System.out.println("  cache: remember the results of this many distinct lines");
+      System.out.println("   or: java dsa.ConvertFile --serve <port> [--optimize] [--threads <n>] [--cache <n>]");
+      System.out.println("  serve: answer requests on a localhost port, or - for stdin/stdout");
+      return;
+    }
+
+    // Check mode
+    if (!mode.equals("infix2postfix") && !mode.equals("postfix2infix")) {
+      System.out.println("Error: mode must be 'infix2postfix' or 'postfix2infix'");
+      return;
+    }
+
+    // Convert file
+    ConversionCache cache = cacheSize > 0 ? new ConversionCache(cacheSize) : null;
+    Expressions.convertFile(mode, input, output, optimize, threads, cache);
+    if (!output.equals("-")) {
+      System.out.println("Done. Wrote converted expressions to " + output);
+    }
+    if (cache != null) {
+      // stderr, so a pipeline's output stays clean
+      System.err.println("Cache: " + cache);
+    }
+    if (Metrics.ENABLED) {
+      System.err.println("Metrics: " + Metrics.forMode(mode));
+    }
+  }
+
+  // Run the conversion server until it is killed (or stdin ends)
+  static void serve(String where, boolean optimize, int cacheSize, int threads) {
+    try (ConversionServer server = new ConversionServer(optimize, cacheSize, threads)) {
+      if (where.equals("-")) {
+        server.serve(System.in, System.out);
+        return;
+      }
+      int port;
+      try {
+        port = Integer.parseInt(where);
+      } catch (NumberFormatException e) {
+        System.out.println("Error: serve needs a port number or -");
+        return;
+      }
+      System.out.println("Serving on localhost:" + port);
+      server.serve(port);
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,261 @@
+// Expr.java - Parsed expression tree
+//
+// Parse a formula once, then compile it for fast repeated evaluation:
+//
+//   Expr expr = Expr.parseInfix("a * x ^ 2 + b");
+//   CompiledExpr f = expr.compile("x", "a", "b");   // slot order
+//   f.evaluate(new double[] {3, 2, 1});             // 19.0
+//
+// A node is a number, a variable, or an operator / function applied to
+// child nodes. Numbers keep their source text, so toPostfix() writes
+// them back exactly as they were read. Nodes are immutable.
+package dsa;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.function.Consumer;
+
+public final class Expr {
+    public enum Kind {
+        NUMBER, VARIABLE, APPLY
+    }
+
+    public final Kind kind;
+    public final String text; // number as written, variable name, or operator symbol
+    public final double value; // NUMBER only
+    public final Operator op; // APPLY only
+    private final Expr[] args;
+
+    private static final Expr[] NO_ARGS = new Expr[0];
+
+    private Expr(Kind kind, String text, double value, Operator op, Expr[] args) {
+        this.kind = kind;
+        this.text = text;
+        this.value = value;
+        this.op = op;
+        this.args = args;
+    }
+
+    public static Expr number(double value) {
+        return new Expr(Kind.NUMBER, numberText(value), value, null, NO_ARGS);
+    }
+
+    public static Expr variable(String name) {
+        return new Expr(Kind.VARIABLE, name, 0, null, NO_ARGS);
+    }
+
+    public static Expr apply(Operator op, Expr... args) {
+        if (args.length != op.arity) {
+            throw new IllegalArgumentException(op.symbol + " takes " + op.arity
+                    + " argument(s), got " + args.length);
+        }
+        return new Expr(Kind.APPLY, op.symbol, 0, op, args.clone());
+    }
+
+    // Operand token: a number if it reads as one, else a variable. Like
+    // Expressions, which passes any operand through, "2x" or "1.2.3" is
+    // a name rather than an error.
+    static Expr operand(CharSequence input, int start, int end) {
+        String text = input.subSequence(start, end).toString();
+        char ch = text.charAt(0);
+        if (Character.isDigit(ch) || ch == '.') {
+            try {
+                return new Expr(Kind.NUMBER, text, Double.parseDouble(text), null, NO_ARGS);
+            } catch (NumberFormatException e) {
+                // not a number: fall through
+            }
+        }
+        return variable(text);
+    }
+
+    // Shortest text that reads back as the same value and lexes as one
+    // operand: "2" rather than "2.0", and never an exponent like "1.0E-5"
+    // (the '-' would split it). Meant for values >= 0.
+    static String numberText(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return new BigDecimal(Double.toString(value)).toPlainString();
+    }
+
+    public int argCount() {
+        return args.length;
+    }
+
+    public Expr arg(int i) {
+        return args[i];
+    }
+
+    // PARSING - the same grammar as Expressions, built-in operators unless
+    // a table is given
+
+    public static Expr parseInfix(CharSequence infix) {
+        return parseInfix(infix, OperatorTable.STANDARD);
+    }
+
+    public static Expr parseInfix(CharSequence infix, OperatorTable table) {
+        Builder builder = new Builder();
+        parseInfix(infix, table, builder);
+        return builder.result();
+    }
+
+    // Feeds the tokens to 'builder'; returns the number of tokens read
+    static int parseInfix(CharSequence infix, OperatorTable table, Builder builder) {
+        return Expressions.parseInfix(infix, table, builder);
+    }
+
+    public static Expr parsePostfix(CharSequence postfix) {
+        return parsePostfix(postfix, OperatorTable.STANDARD);
+    }
+
+    public static Expr parsePostfix(CharSequence postfix, OperatorTable table) {
+        Builder builder = new Builder();
+        parsePostfix(postfix, table, builder);
+        return builder.result();
+    }
+
+    // Feeds the tokens to 'builder'; returns the number of tokens read
+    static int parsePostfix(CharSequence postfix, OperatorTable table, Builder builder) {
+        ExprLexer lexer = new ExprLexer(postfix, table);
+        ExprLexer.Kind kind;
+        while ((kind = lexer.next()) != ExprLexer.Kind.END) {
+            if (kind == ExprLexer.Kind.OPERAND) {
+                builder.operand(postfix, lexer.start(), lexer.end());
+            } else if (kind == ExprLexer.Kind.OPERATOR || kind == ExprLexer.Kind.FUNCTION) {
+                builder.operator(lexer.operator());
+            } else {
+                throw new RuntimeException("Unexpected " + lexer.text() + " in postfix expression");
+            }
+        }
+        return lexer.count();
+    }
+
+    // Assembles nodes from tokens arriving in postfix order
+    static final class Builder implements Expressions.PostfixOutput {
+        private Expr[] stack = new Expr[16];
+        private int top;
+
+        public void operand(CharSequence text, int start, int end) {
+            push(Expr.operand(text, start, end));
+        }
+
+        public void operator(Operator op) {
+            if (top < op.arity) {
+                throw new RuntimeException("Not enough operands for " + op.symbol);
+            }
+            top -= op.arity;
+            Expr[] operands = Arrays.copyOfRange(stack, top, top + op.arity);
+            push(new Expr(Kind.APPLY, op.symbol, 0, op, operands));
+        }
+
+        private void push(Expr node) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * top);
+            }
+            stack[top++] = node;
+        }
+
+        Expr result() {
+            if (top != 1) {
+                throw new RuntimeException("Invalid postfix expression");
+            }
+            return stack[0];
+        }
+    }
+
+    // WALKS - iterative, so very long formulas cannot overflow the Java stack
+
+    // Calls 'visitor' for every node in postfix order (children first).
+    // A subexpression shared by several parents (see optimize()) is
+    // visited once per use.
+    void visitPostorder(Consumer<Expr> visitor) {
+        walk(visitor, null);
+    }
+
+    // Same order, but each distinct node is visited only once
+    void visitDag(Consumer<Expr> visitor) {
+        walk(visitor, new IdentityHashMap<>());
+    }
+
+    private void walk(Consumer<Expr> visitor, IdentityHashMap<Expr, Boolean> seen) {
+        Expr[] nodes = new Expr[16];
+        int[] next = new int[16]; // index of the next child to visit
+        int top = 0;
+        nodes[top] = this;
+        next[top++] = 0;
+        while (top > 0) {
+            Expr node = nodes[top - 1];
+            int child = next[top - 1];
+            if (child < node.args.length) {
+                next[top - 1]++;
+                Expr childNode = node.args[child];
+                if (seen != null && seen.put(childNode, Boolean.TRUE) != null) {
+                    continue;
+                }
+                if (top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, 2 * top);
+                    next = Arrays.copyOf(next, 2 * top);
+                }
+                nodes[top] = childNode;
+                next[top++] = 0;
+            } else {
+                top--;
+                nodes[top] = null;
+                visitor.accept(node);
+            }
+        }
+    }
+
+    // Postfix text, the same format Expressions.infixToPostfix produces
+    public String toPostfix() {
+        StringBuilder out = new StringBuilder();
+        visitPostorder(node -> {
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(node.text);
+        });
+        return out.toString();
+    }
+
+    // Variable names in order of first appearance
+    public String[] variables() {
+        ArrayList<String> names = new ArrayList<>();
+        visitDag(node -> {
+            if (node.kind == Kind.VARIABLE && !names.contains(node.text)) {
+                names.add(node.text);
+            }
+        });
+        return names.toArray(new String[0]);
+    }
+
+    // Distinct nodes - smaller than the written-out size once optimize()
+    // has merged repeated subexpressions
+    public int nodeCount() {
+        int[] count = new int[1];
+        visitDag(node -> count[0]++);
+        return count[0];
+    }
+
+    // Folded, simplified copy with repeated subexpressions shared (see ExprOptimizer)
+    public Expr optimize() {
+        return ExprOptimizer.optimize(this);
+    }
+
+    // Compile with variable slots in order of first appearance (see variables())
+    public CompiledExpr compile() {
+        return new CompiledExpr(this, variables());
+    }
+
+    // Compile with the given slot order; every variable must be listed
+    public CompiledExpr compile(String... slots) {
+        return new CompiledExpr(this, slots.clone());
+    }
+
+    @Override
+    public String toString() {
+        return toPostfix();
+    }
+}
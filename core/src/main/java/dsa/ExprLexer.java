@@ -0,0 +1,147 @@
+// ExprLexer.java - Cursor-based tokenizer for Expressions
+//
+// Walks a CharSequence one token at a time without building Strings:
+// next() reports what kind of token it found, operands are reported as a
+// [start, end) span of the input and operators and functions as the
+// Operator an OperatorTable has for them. Callers that need operand text
+// copy it straight from the input, e.g. StringBuilder.append(input,
+// start, end), or ask for text() on demand.
+//
+//   ExprLexer lexer = new ExprLexer("max(A, B) * (B + 12)");
+//   while (lexer.next() != ExprLexer.Kind.END) { ... }
+//
+// Whitespace separates tokens. A run of letters, digits, '_' and '.' is
+// an operand unless the table knows it as a name (a function such as
+// "max", or a word operator). Punctuation is matched against the
+// table's symbols, longest first, so "<=" wins over "<". '(' ')' and ','
+// are tokens of their own; any other character is OTHER.
+package dsa;
+
+public final class ExprLexer {
+    public enum Kind {
+        OPERAND, OPERATOR, FUNCTION, LEFT_PAREN, RIGHT_PAREN, COMMA, OTHER, END
+    }
+
+    private final OperatorTable table;
+    private final CharSequence input;
+    private final int limit;
+    private int pos;
+
+    private Kind kind;
+    private int start;
+    private int end;
+    private Operator op;
+    private int count; // tokens so far
+
+    // Built-in operators only
+    public ExprLexer(CharSequence input) {
+        this(input, 0, input.length(), OperatorTable.STANDARD);
+    }
+
+    public ExprLexer(CharSequence input, OperatorTable table) {
+        this(input, 0, input.length(), table);
+    }
+
+    // Tokenize input[from, to) only
+    public ExprLexer(CharSequence input, int from, int to) {
+        this(input, from, to, OperatorTable.STANDARD);
+    }
+
+    public ExprLexer(CharSequence input, int from, int to, OperatorTable table) {
+        this.table = table;
+        this.input = input;
+        this.pos = from;
+        this.limit = to;
+    }
+
+    // Advance to the next token and return its kind (END when done)
+    public Kind next() {
+        while (pos < limit && isSpace(input.charAt(pos))) {
+            pos++;
+        }
+        start = pos;
+        op = null;
+        if (pos == limit) {
+            end = pos;
+            return kind = Kind.END;
+        }
+        count++;
+
+        char ch = input.charAt(pos);
+        if (isOperandChar(ch)) {
+            do {
+                pos++;
+            } while (pos < limit && isOperandChar(input.charAt(pos)));
+            end = pos;
+            op = table.lookup(input, start, end);
+            if (op == null) {
+                return kind = Kind.OPERAND;
+            }
+            return kind = op.function ? Kind.FUNCTION : Kind.OPERATOR;
+        }
+
+        if (ch == '(' || ch == ')' || ch == ',') {
+            end = ++pos;
+            return kind = ch == '(' ? Kind.LEFT_PAREN : ch == ')' ? Kind.RIGHT_PAREN : Kind.COMMA;
+        }
+
+        // longest punctuation symbol the table knows
+        for (int length = Math.min(table.longestSymbol(), limit - pos); length > 1; length--) {
+            op = table.lookup(input, pos, pos + length);
+            if (op != null) {
+                pos += length;
+                end = pos;
+                return kind = Kind.OPERATOR;
+            }
+        }
+        op = table.ascii(ch);
+        pos++;
+        if (op == null && Character.isHighSurrogate(ch) && pos < limit
+                && Character.isLowSurrogate(input.charAt(pos))) {
+            pos++; // one character outside the BMP, not half of one
+        }
+        end = pos;
+        return kind = op != null ? Kind.OPERATOR : Kind.OTHER;
+    }
+
+    // Kind of the current token
+    public Kind kind() {
+        return kind;
+    }
+
+    // Span of the current token in the input
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    // Operator or function of the current token (null for other kinds)
+    public Operator operator() {
+        return op;
+    }
+
+    // Tokens returned by next() so far, END not included
+    public int count() {
+        return count;
+    }
+
+    public CharSequence input() {
+        return input;
+    }
+
+    // Current token as a String - allocates, so only for slow paths and errors
+    public String text() {
+        return input.subSequence(start, end).toString();
+    }
+
+    static boolean isSpace(char ch) {
+        return ch == ' ' || (ch >= '\t' && ch <= '\r'); // space, tab, \n, VT, \f, \r
+    }
+
+    static boolean isOperandChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '.';
+    }
+}
@@ -0,0 +1,197 @@
+// ExprOptimizer.java - Constant folding, simplification and CSE for Expr
+//
+// One bottom-up pass over the tree. Each rebuilt node goes through:
+//
+//   1. folding - an operator whose operands are all constants is
+//      computed now: ( 1 - 5 ) ^ 2 becomes 16. Negative results are
+//      written as a negated literal ("4 ~" in postfix), because the lexer
+//      reads "-4" as minus and 4. Results that are NaN or infinite are
+//      left unfolded so the text keeps saying how they arise.
+//   2. simplification - x*1, 1*x, x/1, x-0, x^1 -> x, x^0 -> 1,
+//      ~~x -> x, x + ~y -> x - y, x - ~y -> x + y. Only identities that
+//      hold for every double (NaN, infinities and -0.0 included) are
+//      used, so x*0 is left alone, and so are x+0 and 0+x: -0.0 + 0 is
+//      +0.0, which 1/x would tell apart.
+//   3. hash-consing - structurally equal subtrees become one shared
+//      node, turning the tree into a DAG. CompiledExpr computes a shared
+//      node once and reuses the value; toPostfix() still writes the full
+//      expression.
+//
+// Only the built-in operators are simplified. Registered operators and
+// functions are folded, except functions without arguments (such as a
+// random number source), which may give a different value every call.
+//
+// The result prints through the same postfix/infix code as any parsed
+// tree, so output stays round-trip safe with Expressions' parentheses.
+package dsa;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+public final class ExprOptimizer {
+    private final HashMap<Key, Expr> interned = new HashMap<>();
+    private final IdentityHashMap<Expr, Expr> rebuilt = new IdentityHashMap<>();
+
+    private ExprOptimizer() {
+    }
+
+    public static Expr optimize(Expr expr) {
+        ExprOptimizer optimizer = new ExprOptimizer();
+        expr.visitDag(optimizer::rebuild);
+        return optimizer.rebuilt.get(expr);
+    }
+
+    // Children come first in the walk, so their rebuilt forms are ready
+    private void rebuild(Expr node) {
+        Expr result;
+        if (node.kind != Expr.Kind.APPLY) {
+            result = intern(node);
+        } else {
+            Expr[] args = new Expr[node.argCount()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = rebuilt.get(node.arg(i));
+            }
+            result = simplify(node.op, args);
+        }
+        rebuilt.put(node, result);
+    }
+
+    private Expr simplify(Operator op, Expr[] args) {
+        Expr folded = fold(op, args);
+        if (folded != null) {
+            return folded;
+        }
+
+        if (op == Operator.NEGATE && isApply(args[0], Operator.NEGATE)) {
+            return args[0].arg(0); // ~~x
+        }
+        if (op.arity == 2) {
+            Expr left = args[0];
+            Expr right = args[1];
+            if (op == Operator.MULTIPLY) {
+                if (isNumber(right, 1)) {
+                    return left;
+                }
+                if (isNumber(left, 1)) {
+                    return right;
+                }
+            } else if (op == Operator.DIVIDE) {
+                if (isNumber(right, 1)) {
+                    return left;
+                }
+            } else if (op == Operator.ADD) {
+                // no x+0 -> x: not true for x = -0.0
+                if (isApply(right, Operator.NEGATE)) {
+                    return intern(Expr.apply(Operator.SUBTRACT, left, right.arg(0))); // x + ~y
+                }
+            } else if (op == Operator.SUBTRACT) {
+                if (isNumber(right, 0)) {
+                    return left;
+                }
+                if (isApply(right, Operator.NEGATE)) {
+                    return intern(Expr.apply(Operator.ADD, left, right.arg(0))); // x - ~y
+                }
+            } else if (op == Operator.POWER) {
+                if (isNumber(right, 1)) {
+                    return left;
+                }
+                if (isNumber(right, 0)) {
+                    return constant(1); // Math.pow(x, 0) is 1 even for NaN
+                }
+            }
+        }
+        return intern(Expr.apply(op, args));
+    }
+
+    // Constant for op(args) when every operand is constant, else null
+    private Expr fold(Operator op, Expr[] args) {
+        if (op.arity == 0) {
+            return null;
+        }
+        double[] values = new double[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Expr arg = args[i];
+            if (arg.kind == Expr.Kind.NUMBER) {
+                values[i] = arg.value;
+            } else if (isApply(arg, Operator.NEGATE) && arg.arg(0).kind == Expr.Kind.NUMBER) {
+                values[i] = -arg.arg(0).value; // folded negative constant
+            } else {
+                return null;
+            }
+        }
+        if (op == Operator.NEGATE && args[0].kind == Expr.Kind.NUMBER) {
+            return null; // "4 ~" is already how a negative constant is written
+        }
+
+        double value;
+        try {
+            value = op.apply(values);
+        } catch (RuntimeException e) {
+            return null; // leave it for evaluation time to report
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+        return constant(value);
+    }
+
+    private Expr constant(double value) {
+        // sign bit set (including -0.0) -> negated literal
+        if (Double.doubleToRawLongBits(value) < 0) {
+            return intern(Expr.apply(Operator.NEGATE, intern(Expr.number(-value))));
+        }
+        return intern(Expr.number(value));
+    }
+
+    private static boolean isNumber(Expr expr, double value) {
+        return expr.kind == Expr.Kind.NUMBER && expr.value == value;
+    }
+
+    private static boolean isApply(Expr expr, Operator op) {
+        return expr.kind == Expr.Kind.APPLY && expr.op == op;
+    }
+
+    // One shared instance per distinct subtree. Children are already
+    // interned, so comparing them by identity is enough.
+    private Expr intern(Expr node) {
+        return interned.computeIfAbsent(new Key(node), key -> node);
+    }
+
+    private static final class Key {
+        private final Expr node;
+        private final int hash;
+
+        Key(Expr node) {
+            this.node = node;
+            int h = node.kind.hashCode() * 31 + node.text.hashCode();
+            for (int i = 0; i < node.argCount(); i++) {
+                h = h * 31 + System.identityHashCode(node.arg(i));
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Expr a = node;
+            Expr b = ((Key) other).node;
+            if (a.kind != b.kind || a.op != b.op || !a.text.equals(b.text)
+                    || a.argCount() != b.argCount()) {
+                return false;
+            }
+            for (int i = 0; i < a.argCount(); i++) {
+                if (a.arg(i) != b.arg(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
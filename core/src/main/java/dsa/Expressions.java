@@ -0,0 +1,469 @@
+/*
+expressions.py — Infix <-> Postfix conversions (with file helpers)
+
+- infix_to_postfix(expr: str) -> str
+- postfix_to_infix(expr: str) -> str
+Both handle unary minus by representing it as "~" in postfix form.
+
+File helpers:
+- convert_file(mode, in_path, out_path)
+  mode in {"infix2postfix", "postfix2infix"}
+  Reads one expression per line and writes converted form per line.
+*/
+
+// Expressions.java - Convert between infix and postfix
+//
+// Operators and functions come from an OperatorTable; the methods without
+// a table argument use the built-in grammar (+ - * / ^ and unary minus,
+// written "~" in postfix).
+package dsa;
+
+import java.util.Arrays;
+import java.io.*;
+
+public class Expressions {
+
+    // Convert INFIX to POSTFIX
+    public static String infixToPostfix(String infix) {
+        return infixToPostfix(infix, OperatorTable.STANDARD);
+    }
+
+    public static String infixToPostfix(String infix, OperatorTable table) {
+        StringBuilder out = new StringBuilder(infix.length() + 8);
+        infixToPostfix(infix, out, table);
+        return out.toString();
+    }
+
+    // Convert INFIX to POSTFIX, appending to 'out'. On an error 'out' may
+    // already hold part of the result.
+    public static void infixToPostfix(CharSequence infix, StringBuilder out) {
+        infixToPostfix(infix, out, OperatorTable.STANDARD);
+    }
+
+    public static void infixToPostfix(CharSequence infix, StringBuilder out, OperatorTable table) {
+        if (!Metrics.ENABLED) {
+            parseInfix(infix, table, new TextOutput(out));
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int tokens = parseInfix(infix, table, new TextOutput(out));
+            Metrics.INFIX_TO_POSTFIX.converted(tokens, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            Metrics.INFIX_TO_POSTFIX.failed(e);
+            throw e;
+        }
+    }
+
+    // Receives the tokens of an expression in postfix order
+    interface PostfixOutput {
+        void operand(CharSequence text, int start, int end);
+
+        void operator(Operator op);
+    }
+
+    // Postfix text, tokens separated by single spaces
+    private static final class TextOutput implements PostfixOutput {
+        private final StringBuilder out;
+        private final int first;
+
+        TextOutput(StringBuilder out) {
+            this.out = out;
+            this.first = out.length();
+        }
+
+        public void operand(CharSequence text, int start, int end) {
+            space().append(text, start, end);
+        }
+
+        public void operator(Operator op) {
+            space().append(op.symbol);
+        }
+
+        // Space before every token but the first
+        private StringBuilder space() {
+            if (out.length() > first) {
+                out.append(' ');
+            }
+            return out;
+        }
+    }
+
+    // Shunting-yard over the lexer's tokens, handing them to 'out' in
+    // postfix order. The operator stack holds null for each open '(';
+    // commas[] counts the commas seen inside it, which gives the argument
+    // count when the '(' belongs to a function call. Returns the number of
+    // tokens read.
+    static int parseInfix(CharSequence infix, OperatorTable table, PostfixOutput out) {
+        ExprLexer lexer = new ExprLexer(infix, table);
+        Operator[] stack = new Operator[16];
+        int[] commas = new int[16];
+        int top = 0;
+        boolean expectOperand = true; // at the start, after an operator, '(' or ','
+        boolean callPending = false; // function name read, its '(' must come next
+        ExprLexer.Kind previous = null;
+        int previousStart = 0, previousEnd = 0;
+
+        ExprLexer.Kind kind;
+        while ((kind = lexer.next()) != ExprLexer.Kind.END) {
+            if (callPending && kind != ExprLexer.Kind.LEFT_PAREN) {
+                throw new RuntimeException("Expected ( after " + stack[top - 1].symbol);
+            }
+            if (top + 1 >= stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+                commas = Arrays.copyOf(commas, stack.length);
+            }
+
+            if (!expectOperand && (kind == ExprLexer.Kind.OPERAND || kind == ExprLexer.Kind.FUNCTION
+                    || kind == ExprLexer.Kind.LEFT_PAREN
+                    || (kind == ExprLexer.Kind.OPERATOR && lexer.operator().arity == 1))) {
+                // "a b", "1 2 + 3", "(a) max(b, c)", "a (b)", "a ~ b"
+                throw new RuntimeException("Missing operator before " + lexer.text());
+            }
+
+            switch (kind) {
+                case OPERAND:
+                    out.operand(infix, lexer.start(), lexer.end());
+                    expectOperand = false;
+                    break;
+
+                case FUNCTION:
+                    stack[top++] = lexer.operator();
+                    callPending = true;
+                    break;
+
+                case OPERATOR: {
+                    Operator op = lexer.operator();
+                    if (expectOperand && op.arity == 2) {
+                        // a "-" where an operand should be is unary (like -5 or -A)
+                        Operator prefix = table.prefixFormOf(op);
+                        if (prefix != null) {
+                            op = prefix;
+                        }
+                    }
+
+                    // Pop operators with higher priority; a prefix operator
+                    // comes before its operand, so it has nothing to pop
+                    while (op.arity == 2 && top > 0 && stack[top - 1] != null) {
+                        Operator above = stack[top - 1];
+                        if (above.priority > op.priority ||
+                                (above.priority == op.priority && !op.rightAssociative)) {
+                            out.operator(above);
+                            top--;
+                        } else {
+                            break;
+                        }
+                    }
+                    stack[top++] = op;
+                    expectOperand = true;
+                    break;
+                }
+
+                case LEFT_PAREN:
+                    commas[top] = 0;
+                    stack[top++] = null;
+                    expectOperand = true;
+                    callPending = false;
+                    break;
+
+                case COMMA:
+                    top = popToParen(stack, top, out);
+                    if (top == 0 || top == 1 || stack[top - 2] == null || !stack[top - 2].function) {
+                        throw new RuntimeException("Unexpected , outside a function call");
+                    }
+                    commas[top - 1]++;
+                    expectOperand = true;
+                    break;
+
+                case RIGHT_PAREN: {
+                    top = popToParen(stack, top, out);
+                    if (top == 0) {
+                        throw new RuntimeException("Mismatched parentheses");
+                    }
+                    int args = previous == ExprLexer.Kind.LEFT_PAREN ? 0 : commas[top - 1] + 1;
+                    top--; // remove '('
+                    if (top > 0 && stack[top - 1] != null && stack[top - 1].function) {
+                        Operator function = stack[--top];
+                        if (args != function.arity) {
+                            throw new RuntimeException(function.symbol + " takes " + function.arity
+                                    + " argument(s), got " + args);
+                        }
+                        out.operator(function);
+                    }
+                    expectOperand = false;
+                    break;
+                }
+
+                default:
+                    // anything else is skipped
+                    break;
+            }
+            previous = kind;
+            previousStart = lexer.start();
+            previousEnd = lexer.end();
+        }
+        if (callPending) {
+            throw new RuntimeException("Expected ( after " + stack[top - 1].symbol);
+        }
+        if (expectOperand && previous != null) {
+            // "a +", "(a *", "max(a,"
+            throw new RuntimeException("Missing operand after "
+                    + infix.subSequence(previousStart, previousEnd));
+        }
+
+        // Pop remaining operators
+        while (top > 0) {
+            Operator op = stack[--top];
+            if (op == null || op.function) {
+                throw new RuntimeException("Mismatched parentheses");
+            }
+            out.operator(op);
+        }
+        return lexer.count();
+    }
+
+    // Output operators down to the nearest '(' (left on the stack)
+    private static int popToParen(Operator[] stack, int top, PostfixOutput out) {
+        while (top > 0 && stack[top - 1] != null) {
+            out.operator(stack[--top]);
+        }
+        return top;
+    }
+
+    // Helper class for building infix expression: a node of the tree read
+    // from postfix. Operands point back into the input instead of copying.
+    private static final class ExprNode {
+        final Operator op; // null for an operand
+        final int start; // operand text is input[start, end)
+        final int end;
+        final ExprNode[] args;
+
+        ExprNode(Operator op, int start, int end, ExprNode[] args) {
+            this.op = op;
+            this.start = start;
+            this.end = end;
+            this.args = args;
+        }
+
+        // 0 for operand or function call, 1 for unary, 2 for binary
+        int operandCount() {
+            return op == null || op.function ? 0 : op.arity;
+        }
+    }
+
+    private static final ExprNode[] NO_ARGS = new ExprNode[0];
+
+    // Check if parentheses are needed around 'child' as an operand of 'op'
+    private static boolean addParens(ExprNode child, Operator op, boolean isRightSide) {
+        if (op.function || child.operandCount() == 0) {
+            return false; // argument or operand, no parens needed
+        }
+
+        int priority = child.op.priority;
+        if (priority < op.priority) {
+            return true;
+        } else if (priority == op.priority && op.arity == 2) {
+            if (isRightSide && !op.rightAssociative && !op.associative) {
+                return true; // a - (b - c), a / (b * c)
+            } else if (!isRightSide && op.rightAssociative) {
+                return true; // (a ^ b) ^ c
+            }
+        }
+        return false;
+    }
+
+    // Convert POSTFIX to INFIX
+    public static String postfixToInfix(String postfix) {
+        return postfixToInfix(postfix, OperatorTable.STANDARD);
+    }
+
+    public static String postfixToInfix(String postfix, OperatorTable table) {
+        StringBuilder out = new StringBuilder(postfix.length() + 16);
+        postfixToInfix(postfix, out, table);
+        return out.toString();
+    }
+
+    // Convert POSTFIX to INFIX, appending to 'out'. The tree is built
+    // first and written in one pass, so the time is linear in the length
+    // however deep the expression is; 'out' is untouched on an error.
+    public static void postfixToInfix(CharSequence postfix, StringBuilder out) {
+        postfixToInfix(postfix, out, OperatorTable.STANDARD);
+    }
+
+    public static void postfixToInfix(CharSequence postfix, StringBuilder out, OperatorTable table) {
+        if (!Metrics.ENABLED) {
+            convertPostfix(postfix, table, out);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int tokens = convertPostfix(postfix, table, out);
+            Metrics.POSTFIX_TO_INFIX.converted(tokens, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            Metrics.POSTFIX_TO_INFIX.failed(e);
+            throw e;
+        }
+    }
+
+    // postfixToInfix without the metrics, for callers that time the
+    // conversion themselves; returns the number of tokens read
+    static int convertPostfix(CharSequence postfix, OperatorTable table, StringBuilder out) {
+        ExprLexer lexer = new ExprLexer(postfix, table);
+        writeInfix(readPostfix(lexer), postfix, out);
+        return lexer.count();
+    }
+
+    private static ExprNode readPostfix(ExprLexer lexer) {
+        ExprNode[] stack = new ExprNode[16];
+        int top = 0;
+
+        ExprLexer.Kind kind;
+        while ((kind = lexer.next()) != ExprLexer.Kind.END) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * top);
+            }
+            if (kind == ExprLexer.Kind.OPERAND) {
+                // Operand (number or variable)
+                stack[top++] = new ExprNode(null, lexer.start(), lexer.end(), NO_ARGS);
+                continue;
+            }
+            if (kind != ExprLexer.Kind.OPERATOR && kind != ExprLexer.Kind.FUNCTION) {
+                throw new RuntimeException("Unexpected " + lexer.text() + " in postfix expression");
+            }
+
+            Operator op = lexer.operator();
+            if (top < op.arity) {
+                throw new RuntimeException("Not enough operands for " + op.symbol);
+            }
+            top -= op.arity;
+            ExprNode[] args = op.arity == 0 ? NO_ARGS : Arrays.copyOfRange(stack, top, top + op.arity);
+            stack[top++] = new ExprNode(op, 0, 0, args);
+        }
+
+        if (top != 1) {
+            throw new RuntimeException("Invalid postfix expression");
+        }
+        return stack[0];
+    }
+
+    // Write the tree as infix - iterative, so deep trees cannot overflow
+    // the Java stack
+    private static void writeInfix(ExprNode root, CharSequence input, StringBuilder out) {
+        ExprNode[] nodes = new ExprNode[16];
+        int[] next = new int[16]; // index of the next child to write
+        boolean[] parens = new boolean[16];
+        int top = 0;
+        nodes[top] = root;
+        next[top++] = 0;
+
+        while (top > 0) {
+            ExprNode node = nodes[top - 1];
+            Operator op = node.op;
+            int child = next[top - 1];
+            if (child == 0) {
+                // opening: '(' if needed, then whatever comes before the operands
+                if (parens[top - 1]) {
+                    out.append('(');
+                }
+                if (op == null) {
+                    out.append(input, node.start, node.end);
+                } else if (op.function) {
+                    out.append(op.symbol).append('(');
+                } else if (op.arity == 1) {
+                    // Prefix unary, like -A; a word operator needs a space
+                    String symbol = op.infixSymbol;
+                    out.append(symbol);
+                    if (ExprLexer.isOperandChar(symbol.charAt(symbol.length() - 1))) {
+                        out.append(' ');
+                    }
+                }
+            }
+
+            if (child < node.args.length) {
+                if (child > 0) {
+                    if (op.function) {
+                        out.append(", ");
+                    } else {
+                        out.append(' ').append(op.infixSymbol).append(' ');
+                    }
+                }
+                next[top - 1]++;
+                if (top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, 2 * top);
+                    next = Arrays.copyOf(next, 2 * top);
+                    parens = Arrays.copyOf(parens, 2 * top);
+                }
+                ExprNode childNode = node.args[child];
+                nodes[top] = childNode;
+                next[top] = 0;
+                parens[top++] = addParens(childNode, op, child == node.args.length - 1);
+            } else {
+                // closing
+                if (op != null && op.function) {
+                    out.append(')');
+                }
+                if (parens[top - 1]) {
+                    out.append(')');
+                }
+                nodes[--top] = null;
+            }
+        }
+    }
+
+    // Like infixToPostfix, with constants folded and identities simplified
+    // first (see ExprOptimizer)
+    public static String infixToPostfixOptimized(String infix) {
+        return Expr.parseInfix(infix).optimize().toPostfix();
+    }
+
+    // Like postfixToInfix, optimized the same way
+    public static String postfixToInfixOptimized(String postfix) {
+        return postfixToInfix(Expr.parsePostfix(postfix).optimize().toPostfix());
+    }
+
+    // Convert file (one expression per line)
+    public static void convertFile(String mode, String inputFile, String outputFile) {
+        convertFile(mode, inputFile, outputFile, false);
+    }
+
+    // optimize = fold constants and simplify while converting
+    public static void convertFile(String mode, String inputFile, String outputFile, boolean optimize) {
+        convertFile(mode, inputFile, outputFile, optimize, 1);
+    }
+
+    // Convert on 'threads' threads; files are read and written as UTF-8
+    // and the output keeps the input's line order (see FileConverter).
+    // "-" is standard input / output.
+    public static void convertFile(String mode, String inputFile, String outputFile, boolean optimize,
+            int threads) {
+        convertFile(mode, inputFile, outputFile, optimize, threads, null);
+    }
+
+    // With a cache of results for repeated lines (null for none)
+    public static void convertFile(String mode, String inputFile, String outputFile, boolean optimize,
+            int threads, ConversionCache cache) {
+        try {
+            new FileConverter(mode, optimize, threads, cache).convert(inputFile, outputFile);
+        } catch (IOException e) {
+            // keep stdout clean when it carries the converted lines
+            (outputFile.equals("-") ? System.err : System.out).println("Error: " + e.getMessage());
+        }
+    }
+
+    // Main - demo
+    public static void main(String[] args) {
+        System.out.println("Demo infix -> postfix");
+        System.out.println("A * ( B + C ) - D / E -> " +
+                infixToPostfix("A * ( B + C ) - D / E"));
+        System.out.println("3 + 4 * 2 / ( 1 - 5 ) ^ 2 ^ 3 -> " +
+                infixToPostfix("3 + 4 * 2 / ( 1 - 5 ) ^ 2 ^ 3"));
+        System.out.println("-A + B -> " + infixToPostfix("-A + B"));
+
+        System.out.println("\nDemo postfix -> infix");
+        System.out.println("A B C + * D E / - -> " +
+                postfixToInfix("A B C + * D E / -"));
+        System.out.println("3 4 2 * 1 5 - 2 3 ^ ^ / + -> " +
+                postfixToInfix("3 4 2 * 1 5 - 2 3 ^ ^ / +"));
+        System.out.println("A ~ B + -> " + postfixToInfix("A ~ B +"));
+    }
+}
\ No newline at end of file
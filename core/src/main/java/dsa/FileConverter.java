@@ -0,0 +1,622 @@
+// FileConverter.java - Convert a file of expressions on several threads
+//
+// The input is read as UTF-8 and cut into chunks of whole lines. Each
+// chunk is converted on a worker thread into one block of text, and the
+// blocks are written in input order, so the output is the same as a
+// single-threaded run line for line:
+//
+//   new FileConverter("infix2postfix", false, 8).convert(input, output);
+//
+// Blank lines are copied through as blank lines. A line that fails to
+// convert becomes "# Error on line N: message", where N counts only the
+// non-empty lines. The reader counts them as it cuts chunks, so each chunk
+// knows its first line number before any worker starts on it.
+//
+// At most two chunks per thread are in flight, so memory stays bounded no
+// matter how large the file is. The same holds for streams: "-" reads
+// standard input or writes standard output, and output is flushed each
+// time the input pauses, so the converter can sit in a Unix pipeline.
+//
+// An optional ConversionCache answers lines seen before without
+// converting them again.
+//
+// Large files (MAP_THRESHOLD and up) take the memory-mapped path instead:
+// the input is mapped with FileChannel.map, each chunk is copied out in
+// one bulk get, and lines are found by scanning the bytes. An ASCII line
+// is lexed through a CharSequence view of those bytes, so it is never
+// decoded into a String; lines with other UTF-8 characters are decoded
+// one by one. Each chunk is encoded
+// into a reusable direct ByteBuffer, and finished chunks go out together
+// in one gathering write. Lines end at '\n' on this path (a '\r' before
+// it is trimmed like any other whitespace).
+package dsa;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class FileConverter {
+    // A chunk ends after this many lines or characters, whichever comes first
+    private static final int CHUNK_LINES = 1024;
+    private static final int CHUNK_CHARS = 1 << 18;
+
+    // Mapped path: files from this size up, mapped this much at a time,
+    // cut into chunks of about this many bytes
+    static final long MAP_THRESHOLD = 1 << 20;
+    private static final int MAP_WINDOW = 1 << 28;
+    private static final int CHUNK_BYTES = 1 << 18;
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final boolean infixToPostfix;
+    private final boolean optimize;
+    private final int threads;
+    private final ConversionCache cache;
+    // Mapped path: input chunks and output buffers waiting to be reused
+    private final ConcurrentLinkedQueue<byte[]> freeChunks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Scratch> scratches = new ThreadLocal<>();
+
+    // mode is "infix2postfix" or "postfix2infix"; optimize folds constants
+    // and simplifies (see ExprOptimizer)
+    public FileConverter(String mode, boolean optimize, int threads) {
+        this(mode, optimize, threads, null);
+    }
+
+    // With a cache of results in front of the conversion (null for none).
+    // The cache must not be shared with a converter of another mode.
+    public FileConverter(String mode, boolean optimize, int threads, ConversionCache cache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.infixToPostfix = mode.equals("infix2postfix");
+        this.optimize = optimize;
+        this.threads = threads;
+        this.cache = cache;
+        if (Metrics.ENABLED && cache != null) {
+            cache.reportTo(infixToPostfix ? Metrics.INFIX_TO_POSTFIX : Metrics.POSTFIX_TO_INFIX);
+        }
+    }
+
+    // The cache in front of the conversion, or null
+    public ConversionCache cache() {
+        return cache;
+    }
+
+    // Like convert(Path, Path), where "-" means standard input / output
+    public void convert(String input, String output) throws IOException {
+        if (!input.equals("-") && !output.equals("-")) {
+            convert(Paths.get(input), Paths.get(output));
+            return;
+        }
+        // stdout straight to the file descriptor: System.out would swallow
+        // a broken pipe and keep converting for a reader that has gone.
+        // Only streams opened here are closed; stdin and stdout stay open
+        // for the rest of the process.
+        try (InputStream in = input.equals("-") ? unclosed(System.in) : Files.newInputStream(Paths.get(input));
+                OutputStream out = output.equals("-") ? unclosed(new FileOutputStream(FileDescriptor.out))
+                        : Files.newOutputStream(Paths.get(output))) {
+            convert(in, out);
+        }
+    }
+
+    private static InputStream unclosed(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // close() only flushes
+    private static OutputStream unclosed(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len); // FilterOutputStream would write byte by byte
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    // Streams UTF-8 lines from 'in' to 'out' (neither is closed). Memory
+    // stays bounded however long the stream is, and whenever the input
+    // has nothing more ready, everything converted so far is flushed - so
+    // in a pipeline each line comes out as soon as it has gone in.
+    public void convert(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        convert(reader, writer);
+        writer.flush();
+    }
+
+    public void convert(Path input, Path output) throws IOException {
+        if (Files.isRegularFile(input) && Files.size(input) >= MAP_THRESHOLD) {
+            convertMapped(input, output);
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                // a stray surrogate is written as '?' rather than failing the file
+                BufferedWriter writer = new BufferedWriter(
+                        new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8))) {
+            convert(reader, writer);
+        }
+    }
+
+    // Converts every line of 'reader' into 'writer' (not closed). When the
+    // reader has no more input ready, the partial chunk is converted and
+    // everything so far is flushed to 'writer', rather than waiting for a
+    // full chunk.
+    public void convert(BufferedReader reader, Writer writer) throws IOException {
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        try {
+            String[] lines = new String[CHUNK_LINES];
+            int count = 0;
+            int chars = 0;
+            int lineNum = 1; // number of the next non-empty line
+            int firstLineNum = lineNum;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines[count++] = line;
+                chars += line.length();
+                if (!isBlank(line)) {
+                    lineNum++;
+                }
+                boolean idle = !reader.ready();
+                if (count == CHUNK_LINES || chars >= CHUNK_CHARS || idle) {
+                    submit(chunkTask(lines, count, firstLineNum), pool, pending, writer);
+                    lines = new String[CHUNK_LINES];
+                    count = 0;
+                    chars = 0;
+                    firstLineNum = lineNum;
+                }
+                if (idle) {
+                    while (!pending.isEmpty()) {
+                        writer.write(result(pending.poll()));
+                    }
+                    writer.flush();
+                }
+            }
+            if (count > 0) {
+                submit(chunkTask(lines, count, firstLineNum), pool, pending, writer);
+            }
+            while (!pending.isEmpty()) {
+                writer.write(result(pending.poll()));
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private Callable<String> chunkTask(String[] lines, int count, int firstLineNum) {
+        return () -> convertChunk(lines, count, firstLineNum);
+    }
+
+    // Runs 'task' now on one thread; otherwise queues it, first writing
+    // out the oldest result if the queue is full
+    private void submit(Callable<String> task, ExecutorService pool, ArrayDeque<Future<String>> pending,
+            Writer writer) throws IOException {
+        if (pool == null) {
+            try {
+                writer.write(task.call());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            return;
+        }
+        if (pending.size() >= 2 * threads) {
+            writer.write(result(pending.poll()));
+        }
+        pending.add(pool.submit(task));
+    }
+
+    static <T> T result(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // Output for lines[0 .. count), each line ending in a newline
+    private String convertChunk(String[] lines, int count, int lineNum) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String line = lines[i].trim();
+            if (!line.isEmpty()) {
+                convertLine(line, lineNum++, out);
+            }
+            out.append(NEWLINE);
+        }
+        return out.toString();
+    }
+
+    // Appends the converted line, or the error report if it does not convert
+    void convertLine(CharSequence line, int lineNum, StringBuilder out) {
+        int mark = out.length();
+        try {
+            if (cache != null) {
+                out.append(cache.get(line.toString(), this::convert));
+            } else {
+                convert(line, out);
+            }
+        } catch (Exception e) {
+            out.setLength(mark); // drop any partial result
+            out.append("# Error on line ").append(lineNum).append(": ").append(e.getMessage());
+        }
+    }
+
+    private String convert(String line) {
+        StringBuilder out = new StringBuilder(line.length() + 16);
+        convert(line, out);
+        return out.toString();
+    }
+
+    // Appends the converted line; throws if it does not convert
+    private void convert(CharSequence line, StringBuilder out) {
+        if (optimize) {
+            convertOptimized(line, out);
+        } else if (infixToPostfix) {
+            Expressions.infixToPostfix(line, out);
+        } else {
+            Expressions.postfixToInfix(line, out);
+        }
+    }
+
+    // Timed and counted like the plain Expressions conversions: one
+    // conversion of the input line's tokens, parse errors included
+    private void convertOptimized(CharSequence line, StringBuilder out) {
+        if (!Metrics.ENABLED) {
+            optimize(line, out);
+            return;
+        }
+        ConversionMetrics metrics = infixToPostfix ? Metrics.INFIX_TO_POSTFIX : Metrics.POSTFIX_TO_INFIX;
+        long start = System.nanoTime();
+        try {
+            int tokens = optimize(line, out);
+            metrics.converted(tokens, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            metrics.failed(e);
+            throw e;
+        }
+    }
+
+    // Appends the optimized conversion; returns the number of tokens read
+    private int optimize(CharSequence line, StringBuilder out) {
+        Expr.Builder builder = new Expr.Builder();
+        int tokens = infixToPostfix
+                ? Expr.parseInfix(line, OperatorTable.STANDARD, builder)
+                : Expr.parsePostfix(line, OperatorTable.STANDARD, builder);
+        String postfix = builder.result().optimize().toPostfix();
+        if (infixToPostfix) {
+            out.append(postfix);
+        } else {
+            Expressions.convertPostfix(postfix, OperatorTable.STANDARD, out);
+        }
+        return tokens;
+    }
+
+    // Same test as line.trim().isEmpty(), without the copy
+    static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // MEMORY-MAPPED PATH
+
+    // Same output as convert(), reading the input through FileChannel.map
+    public void convertMapped(Path input, Path output) throws IOException {
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            int lineNum = 1; // number of the next non-empty line
+            while (position < size) {
+                int length = (int) Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = length;
+                if (position + length < size) {
+                    // stop after the last full line; the rest is mapped again
+                    // at the start of the next window
+                    limit = lastIndexOf(window, (byte) '\n', length) + 1;
+                    if (limit == 0) {
+                        throw new IOException("Line longer than " + MAP_WINDOW + " bytes at offset " + position);
+                    }
+                }
+                for (int from = 0; from < limit; ) {
+                    int newline = indexOf(window, (byte) '\n', Math.min(from + CHUNK_BYTES, limit), limit);
+                    int to = newline < limit ? newline + 1 : limit;
+                    // one bulk copy out of the mapping: scanning a byte[] is
+                    // much cheaper than a bounds-checked get() per byte
+                    int chunkLength = to - from;
+                    byte[] chunk = freeChunks.poll();
+                    if (chunk == null || chunk.length < chunkLength) {
+                        chunk = new byte[Math.max(chunkLength, CHUNK_BYTES + CHUNK_BYTES / 8)];
+                    }
+                    window.get(from, chunk, 0, chunkLength);
+                    int first = lineNum;
+                    lineNum += countLines(chunk, chunkLength);
+                    byte[] bytes = chunk;
+                    Callable<ByteBuffer> task = () -> convertBytes(bytes, chunkLength, first);
+                    if (pool == null) {
+                        write(out, new ByteBuffer[] {callTask(task)}, 1);
+                    } else {
+                        if (pending.size() >= 2 * threads) {
+                            writeDone(out, pending);
+                        }
+                        pending.add(pool.submit(task));
+                    }
+                    from = to;
+                }
+                position += limit;
+            }
+            while (!pending.isEmpty()) {
+                writeDone(out, pending);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static ByteBuffer callTask(Callable<ByteBuffer> task) throws IOException {
+        try {
+            return task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    // Waits for the oldest chunk, then writes it together with every chunk
+    // after it that is already done
+    private void writeDone(FileChannel out, ArrayDeque<Future<ByteBuffer>> pending) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[pending.size()];
+        int count = 0;
+        buffers[count++] = result(pending.poll());
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            buffers[count++] = result(pending.poll());
+        }
+        write(out, buffers, count);
+    }
+
+    private void write(FileChannel out, ByteBuffer[] buffers, int count) throws IOException {
+        ByteBuffer last = buffers[count - 1];
+        while (last.hasRemaining()) {
+            out.write(buffers, 0, count);
+        }
+        for (int i = 0; i < count; i++) {
+            buffers[i].clear();
+            freeBuffers.add(buffers[i]);
+        }
+    }
+
+    // Output for the lines in bytes[0, length), encoded as UTF-8
+    private ByteBuffer convertBytes(byte[] bytes, int length, int lineNum) {
+        Scratch scratch = scratch();
+        StringBuilder out = scratch.text;
+        out.setLength(0);
+        AsciiView view = new AsciiView(bytes);
+        for (int start = 0; start < length; ) {
+            int end = start;
+            int any = 0; // OR of the bytes: negative if any is not ASCII
+            while (end < length && bytes[end] != '\n') {
+                any |= bytes[end++];
+            }
+            // trim, same as String.trim()
+            int s = start;
+            int e = end;
+            while (s < e && (bytes[s] & 0xFF) <= ' ') {
+                s++;
+            }
+            while (e > s && (bytes[e - 1] & 0xFF) <= ' ') {
+                e--;
+            }
+            if (s < e) {
+                if (any >= 0) {
+                    convertLine(view.window(s, e), lineNum++, out);
+                } else {
+                    convertLine(new String(bytes, s, e - s, StandardCharsets.UTF_8).trim(), lineNum++, out);
+                }
+            }
+            out.append(NEWLINE);
+            start = end + 1;
+        }
+        freeChunks.add(bytes);
+        return encode(out, scratch);
+    }
+
+    // Buffers a thread reuses from chunk to chunk
+    private static final class Scratch {
+        final StringBuilder text = new StringBuilder(CHUNK_BYTES + CHUNK_BYTES / 4);
+        byte[] bytes = new byte[CHUNK_BYTES + CHUNK_BYTES / 4];
+    }
+
+    private Scratch scratch() {
+        Scratch scratch = scratches.get();
+        if (scratch == null) {
+            scratch = new Scratch();
+            scratches.set(scratch);
+        }
+        return scratch;
+    }
+
+    // UTF-8 bytes of 'text' in a direct buffer from the free list. The
+    // bytes are built in a heap array and moved over in one bulk put.
+    private ByteBuffer encode(CharSequence text, Scratch scratch) {
+        int length = text.length();
+        if (scratch.bytes.length < 3 * length) {
+            // upper bound: a surrogate pair takes 4 bytes for 2 chars
+            int needed = 0;
+            for (int i = 0; i < length; i++) {
+                char ch = text.charAt(i);
+                needed += ch < 0x80 ? 1 : ch < 0x800 ? 2 : 3;
+            }
+            if (scratch.bytes.length < needed) {
+                scratch.bytes = new byte[needed + needed / 4];
+            }
+        }
+        byte[] bytes = scratch.bytes;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                bytes[n++] = (byte) ch;
+            } else if (ch < 0x800) {
+                bytes[n++] = (byte) (0xC0 | (ch >> 6));
+                bytes[n++] = (byte) (0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int code = Character.toCodePoint(ch, text.charAt(++i));
+                bytes[n++] = (byte) (0xF0 | (code >> 18));
+                bytes[n++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+                bytes[n++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+                bytes[n++] = (byte) (0x80 | (code & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                bytes[n++] = (byte) '?'; // unpaired, as String.getBytes does
+            } else {
+                bytes[n++] = (byte) (0xE0 | (ch >> 12));
+                bytes[n++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                bytes[n++] = (byte) (0x80 | (ch & 0x3F));
+            }
+        }
+
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null || buffer.capacity() < n) {
+            buffer = ByteBuffer.allocateDirect(Math.max(n, 2 * CHUNK_BYTES));
+        }
+        return buffer.put(bytes, 0, n).flip();
+    }
+
+    // Non-empty lines in bytes[0, length), the way convertBytes numbers them.
+    // Only a line's leading whitespace is looked at closely; the rest is a
+    // plain search for the newline.
+    private static int countLines(byte[] bytes, int length) {
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            while (i < length && bytes[i] != '\n' && (bytes[i] & 0xFF) <= ' ') {
+                i++;
+            }
+            if (i < length && bytes[i] != '\n') {
+                count++;
+                while (i < length && bytes[i] != '\n') {
+                    i++;
+                }
+            }
+            i++;
+        }
+        return count;
+    }
+
+    // First index of 'b' in buffer[from, to), or 'to'
+    private static int indexOf(ByteBuffer buffer, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // Last index of 'b' in buffer[0, to), or -1
+    private static int lastIndexOf(ByteBuffer buffer, byte b, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ASCII bytes seen as chars, over a movable window of an array
+    static final class AsciiView implements CharSequence {
+        private final byte[] bytes;
+        private int start;
+        private int end;
+
+        AsciiView(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        // Point the view at bytes[start, end)
+        AsciiView window(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(bytes, start + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
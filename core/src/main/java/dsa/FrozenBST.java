@@ -0,0 +1,140 @@
+// FrozenBST.java - Immutable, array-packed BST for read-mostly workloads
+//
+// BST.freeze() copies the keys into Eytzinger order: the implicit
+// complete tree stored level by level, so the children of slot k are
+// 2k and 2k+1. A search touches one int per level, the top levels share
+// a few cache lines that stay hot, and the two children of a node are
+// neighbours in memory. The descent has no data-dependent branch - the
+// comparison result is added to the index - so the CPU never
+// mispredicts and can run ahead on the next load.
+//
+// Rank, counts and floor/ceiling use a second, sorted copy of the keys
+// with prefix counts, so they never slow down plain search().
+package dsa;
+
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+
+public class FrozenBST {
+    private final int n; // distinct keys
+    private final int[] eytzinger; // keys in Eytzinger order, slot 0 unused
+    private final int[] sortedIndex; // slot -> index into sortedKeys
+    private final int[] sortedKeys;
+    private final int[] prefix; // prefix[i] = keys (with duplicates) before sortedKeys[i]
+
+    // Runs are packed like BST.inorderRuns(): key0, count0, key1, count1, ...
+    FrozenBST(int[] runs) {
+        n = runs.length / 2;
+        eytzinger = new int[n + 1];
+        sortedIndex = new int[n + 1];
+        sortedKeys = new int[n];
+        prefix = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            sortedKeys[i] = runs[2 * i];
+            prefix[i + 1] = prefix[i] + runs[2 * i + 1];
+        }
+        fill(0, 1);
+    }
+
+    // In-order walk of the implicit tree hands out sorted keys; depth is
+    // log2(n), so recursion is fine here
+    private int fill(int next, int slot) {
+        if (slot <= n) {
+            next = fill(next, 2 * slot);
+            eytzinger[slot] = sortedKeys[next];
+            sortedIndex[slot] = next;
+            next++;
+            next = fill(next, 2 * slot + 1);
+        }
+        return next;
+    }
+
+    // Slot of the first key >= 'key', or 0 if every key is smaller
+    private int lowerBoundSlot(int key) {
+        int[] keys = eytzinger;
+        int slot = 1;
+        while (slot <= n) {
+            slot = 2 * slot + (keys[slot] < key ? 1 : 0);
+        }
+        // undo the trailing "went right" steps plus the last "went left"
+        return slot >>> (Integer.numberOfTrailingZeros(~slot) + 1);
+    }
+
+    // Index into sortedKeys of the first key >= 'key' (n if none)
+    private int lowerBound(int key) {
+        int slot = lowerBoundSlot(key);
+        return slot == 0 ? n : sortedIndex[slot];
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        int slot = lowerBoundSlot(data);
+        return slot != 0 && eytzinger[slot] == data;
+    }
+
+    // How many times 'data' was inserted (0 if absent)
+    public int count(int data) {
+        int i = lowerBound(data);
+        return i < n && sortedKeys[i] == data ? prefix[i + 1] - prefix[i] : 0;
+    }
+
+    // Number of keys smaller than 'key' (duplicates counted)
+    public int rank(int key) {
+        return prefix[lowerBound(key)];
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public Integer floor(int key) {
+        int i = lowerBound(key);
+        if (i < n && sortedKeys[i] == key) {
+            return key;
+        }
+        return i == 0 ? null : sortedKeys[i - 1];
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public Integer ceiling(int key) {
+        int slot = lowerBoundSlot(key);
+        return slot == 0 ? null : eytzinger[slot];
+    }
+
+    // INORDER: sorted keys, (key, count) once per distinct key
+    public void visitInorder(BST.KeyCountVisitor visitor) {
+        for (int i = 0; i < n; i++) {
+            visitor.visit(sortedKeys[i], prefix[i + 1] - prefix[i]);
+        }
+    }
+
+    public void forEachInorder(IntConsumer action) {
+        visitInorder(BST.expand(action));
+    }
+
+    public int[] inorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(prefix[n]);
+        visitInorder(filler);
+        return filler.values;
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(prefix[n]);
+        visitInorder(BST.addTo(list));
+        return list;
+    }
+
+    // Mutable, balanced copy
+    public BST thaw() {
+        BST.RunFiller filler = new BST.RunFiller(n);
+        visitInorder(filler);
+        return BST.fromRuns(filler.runs, n, true);
+    }
+
+    // Get size (distinct keys)
+    public int getSize() {
+        return n;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return prefix[n];
+    }
+}
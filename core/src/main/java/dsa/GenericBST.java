@@ -0,0 +1,307 @@
+// GenericBST.java - BST for any key type, ordered by a Comparator
+//
+// Same structure and rules as BST (duplicates kept as counts, optional
+// AVL balancing, iterative operations). Each key can also carry a value,
+// so the tree works as a sorted map as well as a sorted multiset:
+//
+//   GenericBST<String, Integer> ages = new GenericBST<>(true);
+//   ages.put("ann", 31);
+//   ages.get("ann");   // 31
+//
+// For int, long and double keys use BST, LongBST and DoubleBST, which
+// compare primitives directly instead of calling a Comparator.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public class GenericBST<K, V> {
+    // count starts at 0 here and is set by insert/put
+    static class Node<K, V> extends AvlNode<Node<K, V>> {
+        K data;
+        V value;
+
+        Node(K data) {
+            this.data = data;
+        }
+    }
+
+    // Callback for traversals, once per node
+    public interface KeyCountVisitor<K> {
+        void visit(K key, int count);
+    }
+
+    final Comparator<? super K> comparator;
+    Node<K, V> root;
+    int size; // number of nodes
+    int total; // number of keys, counting duplicates
+    final boolean balanced; // keep the tree AVL-balanced
+    private final AvlPath<Node<K, V>> avl; // insert/remove path and rebalancing
+
+    // Natural ordering; keys must be Comparable
+    @SuppressWarnings("unchecked")
+    public GenericBST(boolean balanced) {
+        this((Comparator<? super K>) Comparator.naturalOrder(), balanced);
+    }
+
+    public GenericBST(Comparator<? super K> comparator, boolean balanced) {
+        if (comparator == null) {
+            throw new NullPointerException("comparator");
+        }
+        this.comparator = comparator;
+        this.balanced = balanced;
+        this.avl = new AvlPath<>(GenericBST::newNodes, balanced);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[] newNodes(int length) {
+        return (Node<K, V>[]) new Node[length];
+    }
+
+    // Insert a key (multiset style - a duplicate bumps its count)
+    public void insert(K data) {
+        findOrAdd(data).count++;
+        total++;
+    }
+
+    // Set the value stored with a key, adding the key if needed.
+    // Returns the previous value (null if there was none).
+    public V put(K data, V value) {
+        Node<K, V> node = findOrAdd(data);
+        if (node.count == 0) {
+            node.count = 1;
+            total++;
+        }
+        V previous = node.value;
+        node.value = value;
+        return previous;
+    }
+
+    // Value stored with a key, or null
+    public V get(K data) {
+        Node<K, V> node = lookup(data);
+        return node == null ? null : node.value;
+    }
+
+    // Search for a key
+    public boolean search(K data) {
+        return lookup(data) != null;
+    }
+
+    // How many times 'data' was inserted (0 if absent)
+    public int count(K data) {
+        Node<K, V> node = lookup(data);
+        return node == null ? 0 : node.count;
+    }
+
+    private Node<K, V> lookup(K data) {
+        Node<K, V> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(data, current.data);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    // Node for 'data'; a missing key gets a new node with count 0,
+    // which the caller then sets
+    private Node<K, V> findOrAdd(K data) {
+        if (root == null) {
+            root = new Node<>(data);
+            size++;
+            return root;
+        }
+
+        Node<K, V>[] path = avl.nodes(root.height);
+        int depth = 0;
+        Node<K, V> current = root;
+        Node<K, V> node;
+        while (true) {
+            path[depth++] = current;
+            int cmp = comparator.compare(data, current.data);
+            if (cmp < 0) {
+                if (current.left == null) {
+                    node = new Node<>(data);
+                    current.left = node;
+                    break;
+                }
+                current = current.left;
+            } else if (cmp > 0) {
+                if (current.right == null) {
+                    node = new Node<>(data);
+                    current.right = node;
+                    break;
+                }
+                current = current.right;
+            } else {
+                avl.clear(depth);
+                return current;
+            }
+        }
+        size++;
+        root = avl.retrace(root, depth);
+        return node;
+    }
+
+    // Remove one occurrence of a key; the value goes with the last one
+    public boolean remove(K data) {
+        if (root == null) {
+            return false;
+        }
+
+        Node<K, V>[] path = avl.nodes(root.height);
+        int depth = 0;
+        Node<K, V> current = root;
+        int cmp;
+        while (current != null && (cmp = comparator.compare(data, current.data)) != 0) {
+            path[depth++] = current;
+            current = cmp < 0 ? current.left : current.right;
+        }
+        if (current == null) {
+            avl.clear(depth);
+            return false;
+        }
+
+        total--;
+        if (current.count > 1) {
+            // has duplicates, just decrease count
+            current.count--;
+            avl.clear(depth);
+            return true;
+        }
+
+        // only 1 occurrence, need to remove node
+        size--;
+        if (current.left == null || current.right == null) {
+            // leaf or one child - splice the node out
+            Node<K, V> child = current.left != null ? current.left : current.right;
+            if (depth == 0) {
+                root = child;
+            } else {
+                AvlPath.replaceChild(path[depth - 1], current, child);
+            }
+        } else {
+            // two children, move the successor (with count and value) up here
+            path[depth++] = current;
+            Node<K, V> successor = current.right;
+            while (successor.left != null) {
+                path[depth++] = successor;
+                successor = successor.left;
+            }
+            current.data = successor.data;
+            current.value = successor.value;
+            current.count = successor.count;
+            AvlPath.replaceChild(path[depth - 1], successor, successor.right);
+        }
+        root = avl.retrace(root, depth);
+        return true;
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public K floor(K key) {
+        Node<K, V> best = null;
+        Node<K, V> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(key, current.data);
+            if (cmp < 0) {
+                current = current.left;
+            } else {
+                best = current;
+                if (cmp == 0) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public K ceiling(K key) {
+        Node<K, V> best = null;
+        Node<K, V> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(key, current.data);
+            if (cmp > 0) {
+                current = current.right;
+            } else {
+                best = current;
+                if (cmp == 0) {
+                    break;
+                }
+                current = current.left;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // INORDER over nodes, shared by the public traversals
+    private void walkInorder(Consumer<Node<K, V>> action) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] stack = (Node<K, V>[]) new Node[AvlNode.height(root)];
+        int top = 0;
+        Node<K, V> current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            action.accept(current);
+            current = current.right;
+        }
+    }
+
+    // INORDER: Left -> Node -> Right (sorted order), once per node
+    public void visitInorder(KeyCountVisitor<? super K> visitor) {
+        walkInorder(node -> visitor.visit(node.data, node.count));
+    }
+
+    // Sorted (key, value) pairs, once per key - the sorted-map view
+    public void forEachEntry(BiConsumer<? super K, ? super V> action) {
+        walkInorder(node -> action.accept(node.data, node.value));
+    }
+
+    // Every key, 'count' times for duplicates
+    public void forEachInorder(Consumer<? super K> action) {
+        walkInorder(node -> {
+            for (int i = 0; i < node.count; i++) {
+                action.accept(node.data);
+            }
+        });
+    }
+
+    public ArrayList<K> inorder() {
+        ArrayList<K> list = new ArrayList<>(total);
+        forEachInorder(list::add);
+        return list;
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    // Get size
+    public int getSize() {
+        return size;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+
+    // Get height (empty tree = 0, single node = 1)
+    public int getHeight() {
+        return AvlNode.height(root);
+    }
+}
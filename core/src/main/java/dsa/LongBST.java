@@ -0,0 +1,237 @@
+// LongBST.java - BST with long keys
+//
+// Same structure and rules as BST (duplicates kept as counts, optional
+// AVL balancing, iterative operations), hand-specialized for long so the
+// compare loop never boxes. See GenericBST for arbitrary key types.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.function.LongConsumer;
+
+public class LongBST {
+    static class Node extends AvlNode<Node> {
+        long data;
+
+        Node(long data) {
+            this.data = data;
+            this.count = 1;
+        }
+    }
+
+    // Callback for traversals, once per node
+    public interface KeyCountVisitor {
+        void visit(long key, int count);
+    }
+
+    Node root;
+    int size; // number of nodes
+    int total; // number of keys, counting duplicates
+    final boolean balanced; // keep the tree AVL-balanced
+    private final AvlPath<Node> avl; // insert/remove path and rebalancing
+
+    public LongBST() {
+        this(false);
+    }
+
+    public LongBST(boolean balanced) {
+        this.balanced = balanced;
+        this.avl = new AvlPath<>(Node[]::new, balanced);
+    }
+
+    // Insert a number
+    public void insert(long data) {
+        total++;
+        if (root == null) {
+            root = new Node(data);
+            size++;
+            return;
+        }
+
+        Node[] path = avl.nodes(root.height);
+        int depth = 0;
+        Node current = root;
+        while (true) {
+            path[depth++] = current;
+            if (data < current.data) {
+                if (current.left == null) {
+                    current.left = new Node(data);
+                    break;
+                }
+                current = current.left;
+            } else if (data > current.data) {
+                if (current.right == null) {
+                    current.right = new Node(data);
+                    break;
+                }
+                current = current.right;
+            } else {
+                // duplicate - just increase count
+                current.count++;
+                avl.clear(depth);
+                return;
+            }
+        }
+        size++;
+        root = avl.retrace(root, depth);
+    }
+
+    // Search for a number
+    public boolean search(long data) {
+        Node current = root;
+        while (current != null) {
+            if (data < current.data) {
+                current = current.left;
+            } else if (data > current.data) {
+                current = current.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Remove one occurrence of a number
+    public boolean remove(long data) {
+        if (root == null) {
+            return false;
+        }
+
+        Node[] path = avl.nodes(root.height);
+        int depth = 0;
+        Node current = root;
+        while (current != null && current.data != data) {
+            path[depth++] = current;
+            current = data < current.data ? current.left : current.right;
+        }
+        if (current == null) {
+            avl.clear(depth);
+            return false;
+        }
+
+        total--;
+        if (current.count > 1) {
+            // has duplicates, just decrease count
+            current.count--;
+            avl.clear(depth);
+            return true;
+        }
+
+        // only 1 occurrence, need to remove node
+        size--;
+        if (current.left == null || current.right == null) {
+            // leaf or one child - splice the node out
+            Node child = current.left != null ? current.left : current.right;
+            if (depth == 0) {
+                root = child;
+            } else {
+                AvlPath.replaceChild(path[depth - 1], current, child);
+            }
+        } else {
+            // two children, move the successor (with its count) up here
+            path[depth++] = current;
+            Node successor = current.right;
+            while (successor.left != null) {
+                path[depth++] = successor;
+                successor = successor.left;
+            }
+            current.data = successor.data;
+            current.count = successor.count;
+            AvlPath.replaceChild(path[depth - 1], successor, successor.right);
+        }
+        root = avl.retrace(root, depth);
+        return true;
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public Long floor(long key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key < current.data) {
+                current = current.left;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public Long ceiling(long key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key > current.data) {
+                current = current.right;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.left;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // INORDER: Left -> Node -> Right (sorted order)
+    public void visitInorder(KeyCountVisitor visitor) {
+        Node[] stack = new Node[AvlNode.height(root)];
+        int top = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            visitor.visit(current.data, current.count);
+            current = current.right;
+        }
+    }
+
+    public void forEachInorder(LongConsumer action) {
+        visitInorder((key, count) -> {
+            for (int i = 0; i < count; i++) {
+                action.accept(key);
+            }
+        });
+    }
+
+    public long[] inorderArray() {
+        long[] values = new long[total];
+        int[] pos = new int[1];
+        forEachInorder(key -> values[pos[0]++] = key);
+        return values;
+    }
+
+    public ArrayList<Long> inorder() {
+        ArrayList<Long> list = new ArrayList<>(total);
+        forEachInorder(list::add);
+        return list;
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    // Get size
+    public int getSize() {
+        return size;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+
+    // Get height (empty tree = 0, single node = 1)
+    public int getHeight() {
+        return AvlNode.height(root);
+    }
+}
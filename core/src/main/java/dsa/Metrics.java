@@ -0,0 +1,101 @@
+// Metrics.java - Opt-in instrumentation for BST and Expressions
+//
+// Off unless the JVM starts with -Ddsa.metrics=true:
+//
+//   java -Ddsa.metrics=true -jar dsa-core.jar --serve 7070
+//
+// ENABLED is a static final, so with metrics off the JIT drops every
+// "if (Metrics.ENABLED)" block and the hot paths run exactly as before.
+// With metrics on:
+//
+//   - every conversion is timed and its tokens counted, and errors and
+//     ConversionCache lookups are counted, per mode (ConversionMetrics),
+//     shown over JMX as dsa:type=Conversion,name=infix2postfix and
+//     dsa:type=Conversion,name=postfix2infix
+//   - BST.search() counts the nodes it looks at, and trees passed to
+//     register() show their shape as dsa:type=BST,name=<name>
+//     (TreeMetrics)
+//
+// Any JMX client (jconsole, VisualVM) can read them, and the getters can
+// be called directly.
+package dsa;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("dsa.metrics");
+
+    public static final ConversionMetrics INFIX_TO_POSTFIX = new ConversionMetrics("infix2postfix");
+    public static final ConversionMetrics POSTFIX_TO_INFIX = new ConversionMetrics("postfix2infix");
+
+    static {
+        if (ENABLED) {
+            expose(objectName("Conversion", INFIX_TO_POSTFIX.mode()), INFIX_TO_POSTFIX);
+            expose(objectName("Conversion", POSTFIX_TO_INFIX.mode()), POSTFIX_TO_INFIX);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    // Metrics for "infix2postfix" or "postfix2infix"
+    public static ConversionMetrics forMode(String mode) {
+        if (mode.equals("infix2postfix")) {
+            return INFIX_TO_POSTFIX;
+        } else if (mode.equals("postfix2infix")) {
+            return POSTFIX_TO_INFIX;
+        }
+        throw new IllegalArgumentException("Unknown mode " + mode);
+    }
+
+    // Show 'tree' over JMX under 'name' (quoted unless it is only letters,
+    // digits, '_', '.' and '-'), replacing any tree registered under that
+    // name before. With metrics off nothing is registered and
+    // the searches are not counted, but the shape figures still work.
+    public static TreeMetrics register(String name, BST tree) {
+        TreeMetrics metrics = new TreeMetrics(tree);
+        if (ENABLED) {
+            ObjectName objectName = objectName("BST", name);
+            unexpose(objectName);
+            expose(objectName, metrics);
+        }
+        return metrics;
+    }
+
+    public static void unregister(String name) {
+        if (ENABLED) {
+            unexpose(objectName("BST", name));
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) {
+        try {
+            boolean plain = name.matches("[\\w.-]+");
+            return new ObjectName("dsa:type=" + type + ",name=" + (plain ? name : ObjectName.quote(name)));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Bad metrics name " + name, e);
+        }
+    }
+
+    private static void expose(ObjectName name, Object bean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + name, e);
+        }
+    }
+
+    private static void unexpose(ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            // unregistered meanwhile
+        }
+    }
+}
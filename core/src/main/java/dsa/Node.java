@@ -0,0 +1,20 @@
+// Node.java - Simple node for BST
+package dsa;
+
+public class Node {
+  int data;
+  Node left;
+  Node right;
+  int count; // for duplicates
+  int height; // longest path down to a leaf, counted in nodes
+  int size; // nodes in this subtree
+  int total; // keys in this subtree, counting duplicates
+
+  public Node(int data) {
+    this.data = data;
+    this.count = 1;
+    this.height = 1;
+    this.size = 1;
+    this.total = 1;
+  }
+}
\ No newline at end of file
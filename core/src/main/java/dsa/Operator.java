@@ -0,0 +1,117 @@
+// Operator.java - One operator or function of the expression grammar
+//
+// Everything the converters need to know about an operator lives here:
+// how it is written, how tightly it binds (priority), how many operands
+// it takes (arity), which way it groups, and how to compute it. The
+// converters look operators up in an OperatorTable instead of comparing
+// strings, so new ones can be added without touching Expressions:
+//
+//   OperatorTable table = OperatorTable.standard();
+//   table.register(Operator.binary("%", 3, false, (a, b) -> a % b));
+//   table.register(Operator.function("max", 2, (args, at) -> Math.max(args[at], args[at + 1])));
+//   Expressions.infixToPostfix("max(a, b % 2)", table);   // "a b 2 % max"
+package dsa;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+public final class Operator {
+    // Computes a function from its arguments, args[from] .. args[from + arity - 1].
+    // Arguments are read in place (e.g. from an evaluation stack), so a call
+    // allocates nothing.
+    public interface Evaluator {
+        double apply(double[] args, int from);
+    }
+
+    // Priority of operands and function calls - never need parentheses
+    public static final int ATOM = 100;
+
+    public static final Operator ADD = new Operator("+", "+", 2, 2, false, true, null, Double::sum);
+    public static final Operator SUBTRACT = new Operator("-", "-", 2, 2, false, false, null, (a, b) -> a - b);
+    public static final Operator MULTIPLY = new Operator("*", "*", 3, 2, false, true, null, (a, b) -> a * b);
+    public static final Operator DIVIDE = new Operator("/", "/", 3, 2, false, false, null, (a, b) -> a / b);
+    public static final Operator POWER = new Operator("^", "^", 4, 2, true, false, null, Math::pow);
+    // unary minus: written "-" in infix, "~" in postfix
+    public static final Operator NEGATE = new Operator("~", "-", 5, 1, true, false, a -> -a, null);
+
+    public final String symbol; // postfix token, and how the table finds it
+    public final String infixSymbol; // how it is printed in infix
+    public final int priority;
+    public final int arity; // 1 = prefix unary, 2 = binary; any for functions
+    public final boolean rightAssociative;
+    public final boolean associative; // (a op b) op c == a op (b op c), e.g. + and *
+    public final boolean function; // written name(arg, ...) in infix
+
+    final DoubleUnaryOperator unary;
+    final DoubleBinaryOperator binary;
+    final Evaluator evaluator;
+
+    private Operator(String symbol, String infixSymbol, int priority, int arity,
+            boolean rightAssociative, boolean associative,
+            DoubleUnaryOperator unary, DoubleBinaryOperator binary) {
+        this(symbol, infixSymbol, priority, arity, rightAssociative, associative, false,
+                unary, binary, null);
+    }
+
+    private Operator(String symbol, String infixSymbol, int priority, int arity,
+            boolean rightAssociative, boolean associative, boolean function,
+            DoubleUnaryOperator unary, DoubleBinaryOperator binary, Evaluator evaluator) {
+        if (symbol == null || symbol.isEmpty()) {
+            throw new IllegalArgumentException("Operator symbol must not be empty");
+        }
+        this.symbol = symbol;
+        this.infixSymbol = infixSymbol;
+        this.priority = priority;
+        this.arity = arity;
+        this.rightAssociative = rightAssociative;
+        this.associative = associative;
+        this.function = function;
+        this.unary = unary;
+        this.binary = binary;
+        this.evaluator = evaluator;
+    }
+
+    // Binary infix operator, e.g. binary("%", 3, false, (a, b) -> a % b).
+    // Built-in priorities: + - 2, * / 3, ^ 4, unary minus 5.
+    public static Operator binary(String symbol, int priority, boolean rightAssociative,
+            DoubleBinaryOperator compute) {
+        return new Operator(symbol, symbol, priority, 2, rightAssociative, false, null, compute);
+    }
+
+    // Prefix unary operator, e.g. prefix("!", 5, a -> a == 0 ? 1 : 0)
+    public static Operator prefix(String symbol, int priority, DoubleUnaryOperator compute) {
+        return new Operator(symbol, symbol, priority, 1, true, false, compute, null);
+    }
+
+    // Function called as name(arg1, ..., argN); written "args... name" in postfix
+    public static Operator function(String name, int arity, Evaluator compute) {
+        if (arity < 0) {
+            throw new IllegalArgumentException("Negative arity for " + name);
+        }
+        return new Operator(name, name, ATOM, arity, false, false, true, null, null, compute);
+    }
+
+    // Value of the operator for the given operands
+    public double apply(double... args) {
+        return apply(args, 0);
+    }
+
+    // Value for the operands args[from] .. args[from + arity - 1]
+    public double apply(double[] args, int from) {
+        if (unary != null) {
+            return unary.applyAsDouble(args[from]);
+        }
+        if (binary != null) {
+            return binary.applyAsDouble(args[from], args[from + 1]);
+        }
+        if (evaluator != null) {
+            return evaluator.apply(args, from);
+        }
+        throw new UnsupportedOperationException("No way to compute " + symbol);
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
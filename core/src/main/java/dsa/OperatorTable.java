@@ -0,0 +1,174 @@
+// OperatorTable.java - Symbol -> Operator lookup for the expression grammar
+//
+// Single-character ASCII symbols sit in a 128-entry array, so the common
+// case is one array load. Longer symbols ("<=", "&&") and names ("max",
+// "mod") go in a small open-addressing hash table that can be probed with
+// a span of the input - lexing never has to build a String to look a
+// token up.
+//
+// standard() gives the built-in grammar (+ - * / ^ and unary minus) as a
+// new table that can be extended with register(). Register everything
+// before handing the table to other threads; lookups never lock.
+package dsa;
+
+import java.util.ArrayList;
+
+public final class OperatorTable {
+    // Shared built-in grammar for the Expressions methods without a table
+    // argument; nothing ever registers into it
+    static final OperatorTable STANDARD = standard();
+
+    private final Operator[] ascii = new Operator[128];
+    private String[] names = new String[16];
+    private Operator[] values = new Operator[16];
+    private int count;
+    private int longestSymbol = 1; // longest symbol made of punctuation
+    private final ArrayList<Operator> prefixForms = new ArrayList<>(); // prefix ops by infix symbol
+
+    public OperatorTable() {
+    }
+
+    // New table with the built-in operators
+    public static OperatorTable standard() {
+        OperatorTable table = new OperatorTable();
+        table.register(Operator.ADD);
+        table.register(Operator.SUBTRACT);
+        table.register(Operator.MULTIPLY);
+        table.register(Operator.DIVIDE);
+        table.register(Operator.POWER);
+        table.register(Operator.NEGATE);
+        return table;
+    }
+
+    // Add an operator or function, replacing any with the same symbol.
+    // A symbol is either a name (letters, digits, '_', '.') or a run of
+    // punctuation; '(' ')' ',' and whitespace are reserved.
+    public OperatorTable register(Operator op) {
+        String symbol = op.symbol;
+        boolean word = ExprLexer.isOperandChar(symbol.charAt(0));
+        for (int i = 0; i < symbol.length(); i++) {
+            char ch = symbol.charAt(i);
+            if (ExprLexer.isOperandChar(ch) != word || ExprLexer.isSpace(ch)
+                    || ch == '(' || ch == ')' || ch == ',') {
+                throw new IllegalArgumentException("Bad operator symbol: \"" + symbol + "\"");
+            }
+        }
+        if (op.function && !word) {
+            throw new IllegalArgumentException("Function name must be a word: \"" + symbol + "\"");
+        }
+
+        if (symbol.length() == 1 && symbol.charAt(0) < ascii.length) {
+            ascii[symbol.charAt(0)] = op;
+        }
+        if (!word) {
+            longestSymbol = Math.max(longestSymbol, symbol.length());
+        }
+        put(symbol, op);
+
+        // a prefix operator printed like a binary one ("-" for "~") is
+        // what that symbol means where an operand is expected
+        if (op.arity == 1 && !op.function) {
+            prefixForms.removeIf(other -> other.infixSymbol.equals(op.infixSymbol));
+            prefixForms.add(op);
+        }
+        return this;
+    }
+
+    // Operator for a symbol, or null
+    public Operator get(String symbol) {
+        return lookup(symbol, 0, symbol.length());
+    }
+
+    // Operator for text[from, to), or null - no allocation
+    public Operator lookup(CharSequence text, int from, int to) {
+        if (to - from == 1) {
+            char ch = text.charAt(from);
+            if (ch < ascii.length) {
+                return ascii[ch];
+            }
+        }
+        int mask = names.length - 1;
+        for (int slot = hash(text, from, to) & mask; names[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(names[slot], text, from, to)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    // Single-character ASCII symbol, or null
+    Operator ascii(char ch) {
+        return ch < ascii.length ? ascii[ch] : null;
+    }
+
+    // Length of the longest punctuation symbol, for longest-match lexing
+    int longestSymbol() {
+        return longestSymbol;
+    }
+
+    // Prefix operator to use when 'op' shows up where an operand belongs
+    // (unary minus for "-"), or null if there is none
+    public Operator prefixFormOf(Operator op) {
+        if (op.arity == 1) {
+            return op;
+        }
+        for (int i = 0; i < prefixForms.size(); i++) {
+            Operator prefix = prefixForms.get(i);
+            if (prefix.infixSymbol.equals(op.infixSymbol)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    private void put(String symbol, Operator op) {
+        if (2 * (count + 1) > names.length) {
+            rehash(2 * names.length);
+        }
+        int mask = names.length - 1;
+        int slot = hash(symbol, 0, symbol.length()) & mask;
+        while (names[slot] != null && !names[slot].equals(symbol)) {
+            slot = (slot + 1) & mask;
+        }
+        if (names[slot] == null) {
+            count++;
+        }
+        names[slot] = symbol;
+        values[slot] = op;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldNames = names;
+        Operator[] oldValues = values;
+        names = new String[capacity];
+        values = new Operator[capacity];
+        count = 0;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                put(oldNames[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Same as String.hashCode, plus a spread so nearby hashes use
+    // different slots
+    private static int hash(CharSequence text, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int from, int to) {
+        if (name.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,290 @@
+// PersistentBST.java - Immutable AVL tree with cheap versions
+//
+// Nodes are never changed once built. insert() and remove() copy only
+// the nodes on the root-to-key path (plus the few a rotation touches)
+// and return a new tree that shares every other node with the old one,
+// so each update costs O(log n) time and memory and every earlier tree
+// stays a valid, unchanging snapshot.
+//
+// That gives readers consistent point-in-time views without locks:
+//
+//   AtomicReference<PersistentBST> current = new AtomicReference<>(new PersistentBST());
+//   current.updateAndGet(tree -> tree.insert(42));   // writer publishes
+//   PersistentBST view = current.get();              // reader keeps a version
+//
+// The tree is always balanced, which also keeps the copied paths short.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+
+public final class PersistentBST {
+    static final class Node {
+        final int data;
+        final int count; // for duplicates
+        final int height;
+        final Node left;
+        final Node right;
+
+        Node(int data, int count, Node left, Node right) {
+            this.data = data;
+            this.count = count;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+    }
+
+    private final Node root;
+    private final int size; // number of nodes
+    private final int total; // number of keys, counting duplicates
+
+    // Empty tree
+    public PersistentBST() {
+        this(null, 0, 0);
+    }
+
+    private PersistentBST(Node root, int size, int total) {
+        this.root = root;
+        this.size = size;
+        this.total = total;
+    }
+
+    // Tree with one more occurrence of 'data'; this tree is unchanged
+    public PersistentBST insert(int data) {
+        Node[] path = new Node[height(root)];
+        int depth = 0;
+        Node current = root;
+        while (current != null && current.data != data) {
+            path[depth++] = current;
+            current = data < current.data ? current.left : current.right;
+        }
+
+        Node replacement;
+        int newSize = size;
+        if (current == null) {
+            replacement = new Node(data, 1, null, null);
+            newSize++;
+        } else {
+            // duplicate - same shape, higher count
+            replacement = new Node(data, current.count + 1, current.left, current.right);
+        }
+        return new PersistentBST(copyPath(path, depth, data, replacement), newSize, total + 1);
+    }
+
+    // Tree with one occurrence of 'data' removed, or this same tree when
+    // 'data' is absent
+    public PersistentBST remove(int data) {
+        Node[] path = new Node[height(root)];
+        int depth = 0;
+        Node current = root;
+        while (current != null && current.data != data) {
+            path[depth++] = current;
+            current = data < current.data ? current.left : current.right;
+        }
+        if (current == null) {
+            return this;
+        }
+
+        Node replacement;
+        int newSize = size;
+        if (current.count > 1) {
+            // has duplicates, just decrease count
+            replacement = new Node(data, current.count - 1, current.left, current.right);
+        } else {
+            newSize--;
+            if (current.left == null || current.right == null) {
+                // leaf or one child - the child takes its place
+                replacement = current.left != null ? current.left : current.right;
+            } else {
+                // two children, the successor (with its count) moves up
+                Node successor = current.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                Node right = removeMin(current.right);
+                replacement = balance(successor.data, successor.count, current.left, right);
+            }
+        }
+        return new PersistentBST(copyPath(path, depth, data, replacement), newSize, total - 1);
+    }
+
+    // Rebuild the recorded path bottom-up around a new subtree for 'data'.
+    // Only these copies are new; everything hanging off them is shared.
+    private static Node copyPath(Node[] path, int depth, int data, Node replacement) {
+        Node subtree = replacement;
+        for (int i = depth - 1; i >= 0; i--) {
+            Node parent = path[i];
+            if (data < parent.data) {
+                subtree = balance(parent.data, parent.count, subtree, parent.right);
+            } else {
+                subtree = balance(parent.data, parent.count, parent.left, subtree);
+            }
+        }
+        return subtree;
+    }
+
+    // Copy of 'node' without its leftmost node
+    private static Node removeMin(Node node) {
+        Node[] path = new Node[node.height];
+        int depth = 0;
+        while (node.left != null) {
+            path[depth++] = node;
+            node = node.left;
+        }
+        Node subtree = node.right;
+        for (int i = depth - 1; i >= 0; i--) {
+            Node parent = path[i];
+            subtree = balance(parent.data, parent.count, subtree, parent.right);
+        }
+        return subtree;
+    }
+
+    // New node for (data, count) over the given children, with the same
+    // single or double rotation BST.rebalance would apply - built from
+    // fresh nodes instead of rewiring old ones
+    private static Node balance(int data, int count, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.data, left.count, left.left,
+                        new Node(data, count, left.right, right));
+            }
+            Node middle = left.right;
+            return new Node(middle.data, middle.count,
+                    new Node(left.data, left.count, left.left, middle.left),
+                    new Node(data, count, middle.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.data, right.count,
+                        new Node(data, count, left, right.left), right.right);
+            }
+            Node middle = right.left;
+            return new Node(middle.data, middle.count,
+                    new Node(data, count, left, middle.left),
+                    new Node(right.data, right.count, middle.right, right.right));
+        }
+        return new Node(data, count, left, right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    // Search for a number
+    public boolean search(int data) {
+        return count(data) > 0;
+    }
+
+    // How many times 'data' was inserted (0 if absent)
+    public int count(int data) {
+        Node current = root;
+        while (current != null) {
+            if (data < current.data) {
+                current = current.left;
+            } else if (data > current.data) {
+                current = current.right;
+            } else {
+                return current.count;
+            }
+        }
+        return 0;
+    }
+
+    // Largest key <= 'key', or null if there is none
+    public Integer floor(int key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key < current.data) {
+                current = current.left;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.right;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // Smallest key >= 'key', or null if there is none
+    public Integer ceiling(int key) {
+        Node best = null;
+        Node current = root;
+        while (current != null) {
+            if (key > current.data) {
+                current = current.right;
+            } else {
+                best = current;
+                if (key == current.data) {
+                    break;
+                }
+                current = current.left;
+            }
+        }
+        return best == null ? null : best.data;
+    }
+
+    // INORDER: Left -> Node -> Right (sorted order)
+    public void visitInorder(BST.KeyCountVisitor visitor) {
+        Node[] stack = new Node[height(root)];
+        int top = 0;
+        Node current = root;
+        while (current != null || top > 0) {
+            while (current != null) {
+                stack[top++] = current;
+                current = current.left;
+            }
+            current = stack[--top];
+            visitor.visit(current.data, current.count);
+            current = current.right;
+        }
+    }
+
+    public void forEachInorder(IntConsumer action) {
+        visitInorder(BST.expand(action));
+    }
+
+    public int[] inorderArray() {
+        BST.ArrayFiller filler = new BST.ArrayFiller(total);
+        visitInorder(filler);
+        return filler.values;
+    }
+
+    public ArrayList<Integer> inorder() {
+        ArrayList<Integer> list = new ArrayList<>(total);
+        visitInorder(BST.addTo(list));
+        return list;
+    }
+
+    // Mutable, balanced copy of this version
+    public BST thaw() {
+        BST.RunFiller filler = new BST.RunFiller(size);
+        visitInorder(filler);
+        return BST.fromRuns(filler.runs, size, true);
+    }
+
+    // Display tree (inorder)
+    public void display() {
+        System.out.println(inorder());
+    }
+
+    // Get size
+    public int getSize() {
+        return size;
+    }
+
+    // Get number of keys, counting duplicates
+    public int getTotal() {
+        return total;
+    }
+
+    // Get height (empty tree = 0, single node = 1)
+    public int getHeight() {
+        return height(root);
+    }
+}
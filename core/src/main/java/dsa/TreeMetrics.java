@@ -0,0 +1,66 @@
+// TreeMetrics.java - Shape and search cost of one BST
+//
+// A view over a live tree; see Metrics.register(). The shape figures are
+// computed when asked (getNodeCount walks the whole tree). BST is not
+// thread-safe, so figures read over JMX while the tree is being changed
+// are only approximate.
+package dsa;
+
+public final class TreeMetrics implements TreeMetricsMXBean {
+    private final BST tree;
+
+    TreeMetrics(BST tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public int getHeight() {
+        return tree.getHeight();
+    }
+
+    @Override
+    public int getNodeCount() {
+        int[] nodes = new int[1];
+        tree.visitInorder((key, count) -> nodes[0]++);
+        return nodes[0];
+    }
+
+    @Override
+    public int getSize() {
+        return tree.getSize();
+    }
+
+    @Override
+    public int getTotal() {
+        return tree.getTotal();
+    }
+
+    @Override
+    public double getDuplicateRatio() {
+        int total = tree.getTotal();
+        return total == 0 ? 0.0 : (double) (total - tree.getSize()) / total;
+    }
+
+    @Override
+    public boolean isBalanced() {
+        return tree.isBalanced();
+    }
+
+    @Override
+    public long getSearches() {
+        return tree.searches;
+    }
+
+    @Override
+    public double getAverageSearchPathLength() {
+        long searches = tree.searches;
+        return searches == 0 ? 0.0 : (double) tree.searchSteps / searches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("height=%d nodes=%d size=%d total=%d duplicates=%.1f%% searches=%d avg path=%.2f",
+                getHeight(), getNodeCount(), getSize(), getTotal(), 100 * getDuplicateRatio(), getSearches(),
+                getAverageSearchPathLength());
+    }
+}
@@ -0,0 +1,26 @@
+// TreeMetricsMXBean.java - What TreeMetrics shows over JMX
+//
+// Registered as dsa:type=BST,name=<name> by Metrics.register().
+package dsa;
+
+public interface TreeMetricsMXBean {
+    int getHeight();
+
+    // Nodes found by walking the tree, and the size the tree keeps; the
+    // two differ only if the bookkeeping is broken
+    int getNodeCount();
+
+    int getSize();
+
+    // Keys counting duplicates, and the share of them that are duplicates
+    int getTotal();
+
+    double getDuplicateRatio();
+
+    boolean isBalanced();
+
+    // search() calls, and the nodes each one looked at on average
+    long getSearches();
+
+    double getAverageSearchPathLength();
+}
@@ -0,0 +1,608 @@
+// BenchBST.java - Rough throughput numbers for BST operations
+//
+// Run with: java dsa.BenchBST [section ...]
+// Each case runs a few warmup rounds first so the JIT has compiled the
+// code before we start timing.
+package dsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BenchBST {
+    static final int WARMUP_ROUNDS = 10;
+    static final int MEASURE_ROUNDS = 10;
+
+    // Keeps the JIT from throwing away results
+    static long sink = 0;
+
+    // Print the best time of several rounds as operations per millisecond
+    static void report(String name, int ops, long bestNanos) {
+        double perMs = ops / (bestNanos / 1_000_000.0);
+        System.out.printf("%-40s %12.0f ops/ms%n", name, perMs);
+    }
+
+    static int[] randomKeys(int n, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextInt();
+        }
+        return keys;
+    }
+
+    // The recursive helpers BST used before going iterative, kept here as
+    // the baseline to compare against
+    static class RecursiveBST {
+        Node root;
+
+        void insert(int data) {
+            root = insertHelper(root, data);
+        }
+
+        private Node insertHelper(Node root, int data) {
+            if (root == null) {
+                return new Node(data);
+            }
+            if (data < root.data) {
+                root.left = insertHelper(root.left, data);
+            } else if (data > root.data) {
+                root.right = insertHelper(root.right, data);
+            } else {
+                root.count++;
+                return root;
+            }
+            root.height = 1 + Math.max(height(root.left), height(root.right));
+            return root;
+        }
+
+        private static int height(Node node) {
+            return node == null ? 0 : node.height;
+        }
+
+        boolean search(int data) {
+            return searchHelper(root, data);
+        }
+
+        private boolean searchHelper(Node root, int data) {
+            if (root == null) {
+                return false;
+            } else if (root.data == data) {
+                return true;
+            } else if (data < root.data) {
+                return searchHelper(root.left, data);
+            } else {
+                return searchHelper(root.right, data);
+            }
+        }
+
+        ArrayList<Integer> inorder() {
+            ArrayList<Integer> list = new ArrayList<>();
+            inorderHelper(root, list);
+            return list;
+        }
+
+        private void inorderHelper(Node root, ArrayList<Integer> list) {
+            if (root != null) {
+                inorderHelper(root.left, list);
+                for (int i = 0; i < root.count; i++) {
+                    list.add(root.data);
+                }
+                inorderHelper(root.right, list);
+            }
+        }
+    }
+
+    // Iterative vs recursive insert/search/inorder on the same random keys
+    static void benchIterativeVsRecursive(int n) {
+        int[] keys = randomKeys(n, 1);
+        long bestRecInsert = Long.MAX_VALUE, bestIterInsert = Long.MAX_VALUE;
+        long bestRecSearch = Long.MAX_VALUE, bestIterSearch = Long.MAX_VALUE;
+        long bestRecInorder = Long.MAX_VALUE, bestIterInorder = Long.MAX_VALUE;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            RecursiveBST rec = new RecursiveBST();
+            for (int key : keys) {
+                rec.insert(key);
+            }
+            long recInsert = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BST iter = new BST();
+            for (int key : keys) {
+                iter.insert(key);
+            }
+            long iterInsert = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int key : keys) {
+                sink += rec.search(key) ? 1 : 0;
+            }
+            long recSearch = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int key : keys) {
+                sink += iter.search(key) ? 1 : 0;
+            }
+            long iterSearch = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += rec.inorder().size();
+            long recInorder = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += iter.inorder().size();
+            long iterInorder = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestRecInsert = Math.min(bestRecInsert, recInsert);
+                bestIterInsert = Math.min(bestIterInsert, iterInsert);
+                bestRecSearch = Math.min(bestRecSearch, recSearch);
+                bestIterSearch = Math.min(bestIterSearch, iterSearch);
+                bestRecInorder = Math.min(bestRecInorder, recInorder);
+                bestIterInorder = Math.min(bestIterInorder, iterInorder);
+            }
+        }
+
+        report("insert    recursive  n=" + n, n, bestRecInsert);
+        report("insert    iterative  n=" + n, n, bestIterInsert);
+        report("search    recursive  n=" + n, n, bestRecSearch);
+        report("search    iterative  n=" + n, n, bestIterSearch);
+        report("inorder   recursive  n=" + n, n, bestRecInorder);
+        report("inorder   iterative  n=" + n, n, bestIterInorder);
+    }
+
+    // Boxed list vs int[] vs visitor for a full inorder walk
+    static void benchTraversals(int n) {
+        BST tree = new BST(true);
+        for (int key : randomKeys(n, 2)) {
+            tree.insert(key);
+        }
+        long bestList = Long.MAX_VALUE, bestArray = Long.MAX_VALUE, bestVisit = Long.MAX_VALUE;
+        long[] sum = new long[1];
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += tree.inorder().size();
+            long list = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += tree.inorderArray().length;
+            long array = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            tree.visitInorder((key, count) -> sum[0] += (long) key * count);
+            long visit = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestList = Math.min(bestList, list);
+                bestArray = Math.min(bestArray, array);
+                bestVisit = Math.min(bestVisit, visit);
+            }
+        }
+        sink += sum[0];
+
+        report("inorder() list          n=" + n, n, bestList);
+        report("inorderArray()          n=" + n, n, bestArray);
+        report("visitInorder()          n=" + n, n, bestVisit);
+    }
+
+    // Rebuilding an index: insert loop vs fromUnsorted vs fromSorted
+    static void benchBulkLoad(int n) {
+        int[] keys = randomKeys(n, 5);
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        long bestLoop = Long.MAX_VALUE, bestUnsorted = Long.MAX_VALUE, bestSorted = Long.MAX_VALUE;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            BST tree = new BST(true);
+            for (int key : keys) {
+                tree.insert(key);
+            }
+            long loop = System.nanoTime() - start;
+            sink += tree.getSize();
+
+            start = System.nanoTime();
+            sink += BST.fromUnsorted(keys).getSize();
+            long unsorted = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += BST.fromSorted(sorted).getSize();
+            long fromSorted = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestLoop = Math.min(bestLoop, loop);
+                bestUnsorted = Math.min(bestUnsorted, unsorted);
+                bestSorted = Math.min(bestSorted, fromSorted);
+            }
+        }
+
+        report("build insert loop   n=" + n, n, bestLoop);
+        report("build fromUnsorted  n=" + n, n, bestUnsorted);
+        report("build fromSorted    n=" + n, n, bestSorted);
+    }
+
+    // Batches folded into a big tree: one insert/remove per key vs
+    // insertAll/removeAll. Each round adds the batch and takes it out
+    // again, so the tree is the same for every round. "clustered" keys
+    // fall in a narrow window and share most of their path.
+    static void benchBatches(int n, int batchSize) {
+        BST tree = BST.fromUnsorted(randomKeys(n, 8));
+        int[] spread = randomKeys(batchSize, 9);
+        int[] clustered = new int[batchSize];
+        Random random = new Random(10);
+        int base = random.nextInt();
+        for (int i = 0; i < batchSize; i++) {
+            clustered[i] = base + random.nextInt(batchSize * 64);
+        }
+
+        for (int[] batch : new int[][] {spread, clustered}) {
+            long bestLoop = Long.MAX_VALUE, bestBatch = Long.MAX_VALUE;
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int key : batch) {
+                    tree.insert(key);
+                }
+                for (int key : batch) {
+                    tree.remove(key);
+                }
+                long loop = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                tree.insertAll(batch);
+                sink += tree.removeAll(batch);
+                long batched = System.nanoTime() - start;
+
+                if (round >= WARMUP_ROUNDS) {
+                    bestLoop = Math.min(bestLoop, loop);
+                    bestBatch = Math.min(bestBatch, batched);
+                }
+            }
+            String kind = batch == spread ? "spread   " : "clustered";
+            report("batch " + kind + " insert+remove loop  b=" + batchSize, 2 * batchSize, bestLoop);
+            report("batch " + kind + " insertAll+removeAll b=" + batchSize, 2 * batchSize, bestBatch);
+        }
+    }
+
+    // Pointer tree vs Eytzinger array, random hits and misses. Sizes go
+    // from a few KB (fits in L1) to hundreds of MB (far beyond LLC).
+    static void benchFrozen() {
+        int queries = 2_000_000;
+        for (int n = 1 << 10; n <= 1 << 23; n <<= 3) {
+            int[] keys = randomKeys(n, 6);
+            BST tree = BST.fromUnsorted(keys);
+            FrozenBST frozen = tree.freeze();
+            int[] probes = new int[queries];
+            Random random = new Random(7);
+            for (int i = 0; i < queries; i++) {
+                // half of the probes are present keys
+                probes[i] = random.nextBoolean() ? keys[random.nextInt(n)] : random.nextInt();
+            }
+
+            long bestTree = Long.MAX_VALUE, bestFrozen = Long.MAX_VALUE;
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int probe : probes) {
+                    sink += tree.search(probe) ? 1 : 0;
+                }
+                long treeTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int probe : probes) {
+                    sink += frozen.search(probe) ? 1 : 0;
+                }
+                long frozenTime = System.nanoTime() - start;
+
+                if (round >= WARMUP_ROUNDS) {
+                    bestTree = Math.min(bestTree, treeTime);
+                    bestFrozen = Math.min(bestFrozen, frozenTime);
+                }
+            }
+            report("search BST        n=" + n, queries, bestTree);
+            report("search FrozenBST  n=" + n, queries, bestFrozen);
+        }
+    }
+
+    // The same random int keys through BST, LongBST and GenericBST<Integer>,
+    // to check the primitive path does not pay for the generic one
+    static void benchKeyTypes(int n) {
+        int[] keys = randomKeys(n, 8);
+        long bestInt = Long.MAX_VALUE, bestLong = Long.MAX_VALUE, bestGeneric = Long.MAX_VALUE;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            BST ints = new BST(true);
+            for (int key : keys) {
+                ints.insert(key);
+            }
+            for (int key : keys) {
+                sink += ints.search(key) ? 1 : 0;
+            }
+            long intTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            LongBST longs = new LongBST(true);
+            for (int key : keys) {
+                longs.insert(key);
+            }
+            for (int key : keys) {
+                sink += longs.search(key) ? 1 : 0;
+            }
+            long longTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            GenericBST<Integer, Void> generic = new GenericBST<>(true);
+            for (int key : keys) {
+                generic.insert(key);
+            }
+            for (int key : keys) {
+                sink += generic.search(key) ? 1 : 0;
+            }
+            long genericTime = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestInt = Math.min(bestInt, intTime);
+                bestLong = Math.min(bestLong, longTime);
+                bestGeneric = Math.min(bestGeneric, genericTime);
+            }
+        }
+
+        report("insert+search BST         n=" + n, 2 * n, bestInt);
+        report("insert+search LongBST     n=" + n, 2 * n, bestLong);
+        report("insert+search GenericBST  n=" + n, 2 * n, bestGeneric);
+    }
+
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Heap per key and search speed: Node objects vs parallel int arrays
+    static void benchArrayStorage(int n) {
+        int[] keys = randomKeys(n, 4);
+
+        long before = usedMemory();
+        BST tree = new BST(true);
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        long treeBytes = usedMemory() - before;
+
+        before = usedMemory();
+        ArrayBST array = new ArrayBST(true, n);
+        for (int key : keys) {
+            array.insert(key);
+        }
+        long arrayBytes = usedMemory() - before;
+
+        long bestTree = Long.MAX_VALUE, bestArray = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int key : keys) {
+                sink += tree.search(key) ? 1 : 0;
+            }
+            long treeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int key : keys) {
+                sink += array.search(key) ? 1 : 0;
+            }
+            long arrayTime = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                bestTree = Math.min(bestTree, treeTime);
+                bestArray = Math.min(bestArray, arrayTime);
+            }
+        }
+
+        System.out.printf("%-40s %12.1f bytes/key%n", "memory BST       n=" + n, (double) treeBytes / n);
+        System.out.printf("%-40s %12.1f bytes/key%n", "memory ArrayBST  n=" + n, (double) arrayBytes / n);
+        report("search BST       n=" + n, n, bestTree);
+        report("search ArrayBST  n=" + n, n, bestArray);
+        sink += tree.getSize() + array.getSize();
+    }
+
+    // Persistent vs mutable balanced tree: update speed, and the heap a
+    // retained version costs compared with copying the keys out
+    static void benchPersistent(int n, int updates) {
+        int[] keys = randomKeys(n, 11);
+        int[] extra = randomKeys(updates, 12);
+
+        long bestMutable = Long.MAX_VALUE, bestPersistent = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            BST tree = new BST(true);
+            for (int key : keys) {
+                tree.insert(key);
+            }
+            for (int key : keys) {
+                tree.remove(key);
+            }
+            long mutable = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            PersistentBST version = new PersistentBST();
+            for (int key : keys) {
+                version = version.insert(key);
+            }
+            for (int key : keys) {
+                version = version.remove(key);
+            }
+            long persistent = System.nanoTime() - start;
+            sink += tree.getSize() + version.getSize();
+
+            if (round >= WARMUP_ROUNDS) {
+                bestMutable = Math.min(bestMutable, mutable);
+                bestPersistent = Math.min(bestPersistent, persistent);
+            }
+        }
+        report("insert+remove BST           n=" + n, 2 * n, bestMutable);
+        report("insert+remove PersistentBST n=" + n, 2 * n, bestPersistent);
+
+        // keep every version after each update alive and see what they cost
+        PersistentBST base = new PersistentBST();
+        for (int key : keys) {
+            base = base.insert(key);
+        }
+        PersistentBST[] versions = new PersistentBST[updates];
+        long before = usedMemory();
+        PersistentBST version = base;
+        for (int i = 0; i < updates; i++) {
+            version = version.insert(extra[i]);
+            versions[i] = version;
+        }
+        long versionBytes = usedMemory() - before;
+        sink += versions[updates - 1].getSize() + base.getSize();
+
+        System.out.printf("%-40s %12.1f bytes/version%n", "PersistentBST retained n=" + n,
+                (double) versionBytes / updates);
+        System.out.printf("%-40s %12.1f bytes/version%n", "inorderArray() copy    n=" + n,
+                4.0 * n + 16);
+    }
+
+    // One operation of the mixed workload: 80% search, 10% insert, 10% remove
+    // Returns 1 when a search hits, so results can be summed per thread
+    interface MixedOps {
+        int run(int op, int key);
+    }
+
+    // Total ops/ms for 'threads' threads hammering the same structure.
+    // Every 10 ops a thread inserts a random key (op 0), removes the key
+    // it last inserted (op 1) and searches 8 random keys, so each remove
+    // hits and the structure keeps its size from round to round.
+    static long runThreads(int threads, int opsPerThread, MixedOps ops) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] hits = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                long found = 0;
+                int inserted = 0;
+                for (int i = 0; i < opsPerThread; i++) {
+                    int op = i % 10;
+                    int key = op == 1 ? inserted : random.nextInt(1_000_000);
+                    if (op == 0) {
+                        inserted = key;
+                    }
+                    found += ops.run(op, key);
+                }
+                hits[seed] = found;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        for (long found : hits) {
+            sink += found;
+        }
+        return elapsed;
+    }
+
+    // ConcurrentBST vs a BST behind one global lock, 1..N threads
+    static void benchConcurrentScaling(int maxThreads) throws InterruptedException {
+        int opsPerThread = 500_000;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            BST locked = new BST(true);
+            ConcurrentBST concurrent = new ConcurrentBST();
+            for (int key : randomKeys(100_000, 3)) {
+                locked.insert(key % 1_000_000);
+                concurrent.insert(key % 1_000_000);
+            }
+
+            long bestLocked = Long.MAX_VALUE, bestConcurrent = Long.MAX_VALUE;
+            for (int round = 0; round < 3 + 3; round++) {
+                long lockedTime = runThreads(threads, opsPerThread, (op, key) -> {
+                    synchronized (locked) {
+                        if (op == 0) {
+                            locked.insert(key);
+                        } else if (op == 1) {
+                            locked.remove(key);
+                        } else {
+                            return locked.search(key) ? 1 : 0;
+                        }
+                        return 0;
+                    }
+                });
+                long concurrentTime = runThreads(threads, opsPerThread, (op, key) -> {
+                    if (op == 0) {
+                        concurrent.insert(key);
+                    } else if (op == 1) {
+                        concurrent.remove(key);
+                    } else {
+                        return concurrent.search(key) ? 1 : 0;
+                    }
+                    return 0;
+                });
+                if (round >= 3) {
+                    bestLocked = Math.min(bestLocked, lockedTime);
+                    bestConcurrent = Math.min(bestConcurrent, concurrentTime);
+                }
+            }
+            report("mixed  synchronized BST  threads=" + threads, threads * opsPerThread, bestLocked);
+            report("mixed  ConcurrentBST     threads=" + threads, threads * opsPerThread, bestConcurrent);
+        }
+    }
+
+    // With no arguments every section runs; otherwise only the named ones,
+    // e.g. java dsa.BenchBST traversal array
+    static boolean selected(String[] args, String section) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (arg.equals(section)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("BST benchmarks");
+        System.out.println("==================================================");
+
+        if (selected(args, "iterative")) {
+            benchIterativeVsRecursive(10_000);
+            benchIterativeVsRecursive(1_000_000);
+        }
+        if (selected(args, "traversal")) {
+            benchTraversals(1_000_000);
+        }
+        if (selected(args, "bulk")) {
+            benchBulkLoad(1_000_000);
+        }
+        if (selected(args, "batch")) {
+            benchBatches(1_000_000, 1_000);
+            benchBatches(1_000_000, 50_000);
+        }
+        if (selected(args, "frozen")) {
+            benchFrozen();
+        }
+        if (selected(args, "keys")) {
+            benchKeyTypes(1_000_000);
+        }
+        if (selected(args, "array")) {
+            benchArrayStorage(2_000_000);
+        }
+        if (selected(args, "persistent")) {
+            benchPersistent(100_000, 100_000);
+        }
+        if (selected(args, "concurrent")) {
+            benchConcurrentScaling(Runtime.getRuntime().availableProcessors());
+        }
+
+        System.out.println("==================================================");
+        System.out.println("(sink " + sink + ")");
+    }
+}
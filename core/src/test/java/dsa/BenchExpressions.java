@@ -0,0 +1,617 @@
+// BenchExpressions.java - Rough throughput numbers for Expressions
+//
+// Run with: java dsa.BenchExpressions [section ...]
+// Converts a fixed set of random expressions many times over and reports
+// expressions per millisecond plus heap allocated per expression (read
+// from the JVM's per-thread allocation counter). Legacy is the
+// String-based code Expressions used before the cursor lexer, kept as the
+// baseline to compare against. The evaluate section times compiled
+// formulas (see CompiledExpr) in rows per millisecond; the deep section
+// converts single formulas with hundreds of thousands of tokens; the file
+// section converts a whole file through FileConverter in MB/s; the server
+// section times ConversionServer round trips over a local socket; the
+// cache section converts a Zipf-distributed stream through ConversionCache.
+package dsa;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Stack;
+import java.util.function.UnaryOperator;
+
+public class BenchExpressions {
+    static final int WARMUP_ROUNDS = 10;
+    static final int MEASURE_ROUNDS = 10;
+
+    // Keeps the JIT from throwing away results
+    static long sink = 0;
+
+    static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Random infix expression with about 'operands' operands: variables,
+    // integers and decimals, mixed operators, some unary minus and parens
+    static String randomInfix(Random random, int operands) {
+        StringBuilder out = new StringBuilder();
+        appendRandom(out, random, operands);
+        return out.toString();
+    }
+
+    private static void appendRandom(StringBuilder out, Random random, int operands) {
+        if (operands <= 1) {
+            if (random.nextInt(8) == 0) {
+                out.append('-');
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    out.append((char) ('a' + random.nextInt(26))).append(random.nextInt(10));
+                    break;
+                case 1:
+                    out.append(random.nextInt(1000));
+                    break;
+                default:
+                    out.append(random.nextInt(100)).append('.').append(random.nextInt(100));
+                    break;
+            }
+            return;
+        }
+        int left = 1 + random.nextInt(operands - 1);
+        boolean parens = random.nextInt(4) == 0;
+        if (parens) {
+            out.append('(');
+        }
+        appendRandom(out, random, left);
+        out.append(' ').append("+-*/^".charAt(random.nextInt(5))).append(' ');
+        appendRandom(out, random, operands - left);
+        if (parens) {
+            out.append(')');
+        }
+    }
+
+    static String[] randomInfixLines(int count, int operands, long seed) {
+        Random random = new Random(seed);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = randomInfix(random, operands);
+        }
+        return lines;
+    }
+
+    // Best round of converting every line, reported as expressions/ms and
+    // bytes allocated per expression
+    static void run(String name, String[] lines, UnaryOperator<String> convert) {
+        long best = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        long thread = Thread.currentThread().getId();
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long bytes = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (String line : lines) {
+                sink += convert.apply(line).length();
+            }
+            long time = System.nanoTime() - start;
+            bytes = THREADS.getThreadAllocatedBytes(thread) - bytes;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, time);
+                bestBytes = Math.min(bestBytes, bytes);
+            }
+        }
+        double perMs = lines.length / (best / 1_000_000.0);
+        if (perMs < 10) {
+            // long formulas: time per expression reads better
+            System.out.printf("%-40s %10.2f ms/expr  %10.0f bytes/expr%n", name, 1 / perMs,
+                    (double) bestBytes / lines.length);
+            return;
+        }
+        System.out.printf("%-40s %10.0f expr/ms %10.0f bytes/expr%n", name, perMs,
+                (double) bestBytes / lines.length);
+    }
+
+    static void benchConversions(int count, int operands) {
+        String[] infix = randomInfixLines(count, operands, 1);
+        String[] postfix = new String[count];
+        for (int i = 0; i < count; i++) {
+            postfix[i] = Expressions.infixToPostfix(infix[i]);
+        }
+
+        run("infix2postfix legacy   ops=" + operands, infix, Legacy::infixToPostfix);
+        run("infix2postfix lexer    ops=" + operands, infix, Expressions::infixToPostfix);
+        run("postfix2infix legacy   ops=" + operands, postfix, Legacy::postfixToInfix);
+        run("postfix2infix lexer    ops=" + operands, postfix, Expressions::postfixToInfix);
+    }
+
+    // One long chain of subtractions, in postfix: left-leaning
+    // ("a b - c - ...") or right-leaning ("a b c ... - -"), which needs
+    // a parenthesis per level in infix
+    static String chainPostfix(int operands, boolean rightLeaning) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < operands; i++) {
+            out.append(i == 0 ? "x" : " x").append(i);
+            if (!rightLeaning && i > 0) {
+                out.append(" -");
+            }
+        }
+        if (rightLeaning) {
+            out.append(" -".repeat(operands - 1));
+        }
+        return out.toString();
+    }
+
+    // Very long formulas: the legacy conversion copies each level's string
+    // into its parent, which is quadratic in the depth
+    static void benchDeep(int operands) {
+        for (boolean rightLeaning : new boolean[] {false, true}) {
+            String[] line = {chainPostfix(operands, rightLeaning)};
+            String shape = (rightLeaning ? "right" : "left") + " ops=" + operands;
+            if (operands <= 20_000) {
+                run("postfix2infix legacy   " + shape, line, Legacy::postfixToInfix);
+            }
+            run("postfix2infix tree     " + shape, line, Expressions::postfixToInfix);
+        }
+    }
+
+    // A file of 'count' random formulas, one thread: BufferedReader lines
+    // vs the memory-mapped path, in MB/s of input and bytes allocated per line
+    static void benchFile(int count, int operands) throws IOException {
+        Path input = Files.createTempFile("bench", ".txt");
+        Path output = Files.createTempFile("bench", ".out");
+        try {
+            Files.write(input, Arrays.asList(randomInfixLines(count, operands, 3)),
+                    StandardCharsets.UTF_8);
+            double mb = Files.size(input) / 1e6;
+            FileConverter converter = new FileConverter("infix2postfix", false, 1);
+            for (boolean mapped : new boolean[] {false, true}) {
+                long best = Long.MAX_VALUE;
+                long bestBytes = Long.MAX_VALUE;
+                long thread = Thread.currentThread().getId();
+                for (int round = 0; round < 8; round++) {
+                    long bytes = THREADS.getThreadAllocatedBytes(thread);
+                    long start = System.nanoTime();
+                    if (mapped) {
+                        converter.convertMapped(input, output);
+                    } else {
+                        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                                BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                            converter.convert(reader, writer);
+                        }
+                    }
+                    long time = System.nanoTime() - start;
+                    bytes = THREADS.getThreadAllocatedBytes(thread) - bytes;
+                    if (round >= 3) {
+                        best = Math.min(best, time);
+                        bestBytes = Math.min(bestBytes, bytes);
+                    }
+                }
+                sink += Files.size(output);
+                System.out.printf("%-40s %10.1f MB/s    %10.0f bytes/line%n",
+                        (mapped ? "file mapped " : "file reader ") + "ops=" + operands,
+                        mb / (best / 1e9), (double) bestBytes / count);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    // Requests to a ConversionServer from a stub client: one at a time
+    // (latency per round trip) and pipelined in batches (throughput)
+    static void benchServer(int count, int batchSize) throws IOException {
+        String[] lines = randomInfixLines(count, 4, 4);
+        byte[][] requests = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            requests[i] = ("infix2postfix " + lines[i] + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        try (ConversionServer server = new ConversionServer(false);
+                Socket client = new Socket(InetAddress.getLoopbackAddress(), server.listen(0))) {
+            client.setTcpNoDelay(true);
+            OutputStream out = client.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.UTF_8));
+
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                for (byte[] request : requests) {
+                    out.write(request);
+                    out.flush();
+                    sink += in.readLine().length();
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-40s %10.1f us/request%n", "server one at a time", best / 1000.0 / count);
+
+            best = Long.MAX_VALUE;
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                for (int from = 0; from < count; from += batchSize) {
+                    int to = Math.min(count, from + batchSize);
+                    batch.reset();
+                    for (int i = from; i < to; i++) {
+                        batch.write(requests[i]);
+                    }
+                    batch.writeTo(out);
+                    out.flush();
+                    for (int i = from; i < to; i++) {
+                        sink += in.readLine().length();
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%-40s %10.0f requests/ms%n", "server batches of " + batchSize,
+                    count / (best / 1_000_000.0));
+        }
+    }
+
+    // 'count' requests drawn from 'distinct' formulas with Zipf(s)
+    // popularity: formula k is picked with probability ~ 1 / k^s
+    static String[] zipfLines(int count, int distinct, double s, long seed) {
+        String[] formulas = randomInfixLines(distinct, 6, seed);
+        double[] cumulative = new double[distinct];
+        double total = 0;
+        for (int k = 0; k < distinct; k++) {
+            total += 1 / Math.pow(k + 1, s);
+            cumulative[k] = total;
+        }
+        Random random = new Random(seed);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            int k = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            lines[i] = formulas[k >= 0 ? k : -k - 1];
+        }
+        return lines;
+    }
+
+    // Skewed workload with and without a cache of various sizes
+    static void benchCache(int count, int distinct) {
+        String[] lines = zipfLines(count, distinct, 1.0, 5);
+        run("zipf no cache", lines, Expressions::infixToPostfix);
+        for (int size : new int[] {1_000, 10_000, 100_000}) {
+            ConversionCache cache = new ConversionCache(size);
+            run("zipf cache " + size, lines, line -> cache.get(line, Expressions::infixToPostfix));
+            System.out.println("    " + cache);
+        }
+    }
+
+    // One formula over many variable bindings: a tree walk that looks
+    // variables up by name (what evaluating without a compiler looks
+    // like) vs compiled bytecode vs the vectorized column mode
+    static void benchEvaluate(int rows) {
+        String formula = "(a * x ^ 2 + b * x - c) / (x * x + 1) - -a * (b - c / 4)";
+        Expr expr = Expr.parseInfix(formula);
+        CompiledExpr compiled = expr.compile("x", "a", "b", "c");
+        Random random = new Random(2);
+        double[][] columns = new double[4][rows];
+        for (double[] column : columns) {
+            for (int r = 0; r < rows; r++) {
+                column[r] = random.nextDouble() * 10 - 5;
+            }
+        }
+        double[] out = new double[rows];
+        double[] values = new double[4];
+        HashMap<String, Double> bindings = new HashMap<>();
+
+        long bestTree = Long.MAX_VALUE, bestCompiled = Long.MAX_VALUE, bestColumns = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            double sum = 0;
+            for (int r = 0; r < rows; r += 16) { // the tree walk is slow, sample every 16th row
+                bindings.put("x", columns[0][r]);
+                bindings.put("a", columns[1][r]);
+                bindings.put("b", columns[2][r]);
+                bindings.put("c", columns[3][r]);
+                sum += treeWalk(expr, bindings);
+            }
+            long tree = (System.nanoTime() - start) * 16;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rows; r++) {
+                for (int s = 0; s < 4; s++) {
+                    values[s] = columns[s][r];
+                }
+                sum += compiled.evaluate(values);
+            }
+            long scalar = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            compiled.evaluate(columns, out);
+            long vector = System.nanoTime() - start;
+            sink += (long) sum + (long) out[rows - 1];
+
+            if (round >= WARMUP_ROUNDS) {
+                bestTree = Math.min(bestTree, tree);
+                bestCompiled = Math.min(bestCompiled, scalar);
+                bestColumns = Math.min(bestColumns, vector);
+            }
+        }
+        reportRows("evaluate tree walk + map  rows=" + rows, rows, bestTree);
+        reportRows("evaluate compiled         rows=" + rows, rows, bestCompiled);
+        reportRows("evaluate vectorized       rows=" + rows, rows, bestColumns);
+    }
+
+    static void reportRows(String name, int rows, long bestNanos) {
+        System.out.printf("%-40s %10.0f rows/ms%n", name, rows / (bestNanos / 1_000_000.0));
+    }
+
+    // Recursive interpreter over the tree with named variables
+    static double treeWalk(Expr node, Map<String, Double> bindings) {
+        switch (node.kind) {
+            case NUMBER:
+                return node.value;
+            case VARIABLE:
+                return bindings.get(node.text);
+            default:
+                double[] args = new double[node.argCount()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = treeWalk(node.arg(i), bindings);
+                }
+                return node.op.apply(args);
+        }
+    }
+
+    static class Legacy {
+        // Check if character is operator
+        private static boolean isOperator(String op) {
+            return op.equals("+") || op.equals("-") || op.equals("*") ||
+                    op.equals("/") || op.equals("^") || op.equals("~");
+        }
+
+        // Get operator priority
+        private static int getPriority(String op) {
+            if (op.equals("~"))
+                return 5; // unary minus
+            if (op.equals("^"))
+                return 4;
+            if (op.equals("*") || op.equals("/"))
+                return 3;
+            if (op.equals("+") || op.equals("-"))
+                return 2;
+            return 0;
+        }
+
+        // Check if operator is right associative
+        private static boolean isRightAssociative(String op) {
+            return op.equals("^") || op.equals("~");
+        }
+
+        // Split expression into tokens (numbers, letters, operators)
+        private static ArrayList<String> tokenize(String expr) {
+            ArrayList<String> tokens = new ArrayList<>();
+            String current = "";
+
+            for (int i = 0; i < expr.length(); i++) {
+                char ch = expr.charAt(i);
+
+                if (ch == ' ' || ch == '\t') {
+                    // skip spaces
+                    continue;
+                } else if (Character.isLetterOrDigit(ch) || ch == '_' || ch == '.') {
+                    // build number or variable name
+                    current += ch;
+                } else {
+                    // operator or parenthesis
+                    if (!current.isEmpty()) {
+                        tokens.add(current);
+                        current = "";
+                    }
+                    tokens.add(String.valueOf(ch));
+                }
+            }
+            if (!current.isEmpty()) {
+                tokens.add(current);
+            }
+            return tokens;
+        }
+
+        // Convert INFIX to POSTFIX
+        public static String infixToPostfix(String infix) {
+            ArrayList<String> tokens = tokenize(infix);
+            ArrayList<String> output = new ArrayList<>();
+            Stack<String> stack = new Stack<>();
+            String lastType = null;
+
+            for (String token : tokens) {
+                // Check if it's a number or variable
+                if (Character.isLetterOrDigit(token.charAt(0))) {
+                    output.add(token);
+                    lastType = "OPERAND";
+                }
+                // Check for operators
+                else if (token.equals("+") || token.equals("-") ||
+                        token.equals("*") || token.equals("/") || token.equals("^")) {
+
+                    // Check if minus is unary (like -5 or -A)
+                    String op = token;
+                    if (token.equals("-") && (lastType == null ||
+                            lastType.equals("OP") || lastType.equals("("))) {
+                        op = "~"; // special symbol for unary minus
+                    }
+
+                    // Pop operators with higher priority
+                    while (!stack.isEmpty() && !stack.peek().equals("(")) {
+                        String top = stack.peek();
+                        int topPriority = getPriority(top);
+                        int opPriority = getPriority(op);
+
+                        if (topPriority > opPriority ||
+                                (topPriority == opPriority && !isRightAssociative(op))) {
+                            output.add(stack.pop());
+                        } else {
+                            break;
+                        }
+                    }
+                    stack.push(op);
+                    lastType = "OP";
+                }
+                // Left parenthesis
+                else if (token.equals("(")) {
+                    stack.push("(");
+                    lastType = "(";
+                }
+                // Right parenthesis
+                else if (token.equals(")")) {
+                    while (!stack.isEmpty() && !stack.peek().equals("(")) {
+                        output.add(stack.pop());
+                    }
+                    if (stack.isEmpty()) {
+                        throw new RuntimeException("Mismatched parentheses");
+                    }
+                    stack.pop(); // remove '('
+                    lastType = ")";
+                }
+            }
+
+            // Pop remaining operators
+            while (!stack.isEmpty()) {
+                if (stack.peek().equals("(") || stack.peek().equals(")")) {
+                    throw new RuntimeException("Mismatched parentheses");
+                }
+                output.add(stack.pop());
+            }
+
+            // Join with spaces
+            String result = "";
+            for (int i = 0; i < output.size(); i++) {
+                result += output.get(i);
+                if (i < output.size() - 1) {
+                    result += " ";
+                }
+            }
+            return result;
+        }
+
+        // Helper class for building infix expression
+        private static class ExprNode {
+            String expr;
+            int priority;
+            int operandCount; // 0 for operand, 1 for unary, 2 for binary
+
+            ExprNode(String expr, int priority, int operandCount) {
+                this.expr = expr;
+                this.priority = priority;
+                this.operandCount = operandCount;
+            }
+        }
+
+        // Add parentheses if needed
+        private static String addParens(ExprNode child, int parentPriority,
+                boolean isRightSide, String op) {
+            if (child.operandCount == 0) {
+                return child.expr; // operand, no parens needed
+            }
+
+            boolean needParens = false;
+            if (child.priority < parentPriority) {
+                needParens = true;
+            } else if (child.priority == parentPriority) {
+                if ((op.equals("-") || op.equals("/")) && isRightSide) {
+                    needParens = true;
+                } else if (op.equals("^") && !isRightSide) {
+                    needParens = true;
+                }
+            }
+
+            if (needParens) {
+                return "(" + child.expr + ")";
+            }
+            return child.expr;
+        }
+
+        // Convert POSTFIX to INFIX
+        public static String postfixToInfix(String postfix) {
+            String[] tokens = postfix.split("\\s+");
+            Stack<ExprNode> stack = new Stack<>();
+
+            for (String token : tokens) {
+                if (isOperator(token)) {
+                    if (token.equals("~")) {
+                        // Unary minus
+                        if (stack.isEmpty()) {
+                            throw new RuntimeException("Not enough operands for ~");
+                        }
+                        ExprNode operand = stack.pop();
+                        String expr = "-" + addParens(operand, getPriority(token), true, token);
+                        stack.push(new ExprNode(expr, getPriority(token), 1));
+                    } else {
+                        // Binary operator
+                        if (stack.size() < 2) {
+                            throw new RuntimeException("Not enough operands for " + token);
+                        }
+                        ExprNode right = stack.pop();
+                        ExprNode left = stack.pop();
+                        String leftExpr = addParens(left, getPriority(token), false, token);
+                        String rightExpr = addParens(right, getPriority(token), true, token);
+                        String expr = leftExpr + " " + token + " " + rightExpr;
+                        stack.push(new ExprNode(expr, getPriority(token), 2));
+                    }
+                } else {
+                    // Operand (number or variable)
+                    stack.push(new ExprNode(token, 100, 0));
+                }
+            }
+
+            if (stack.size() != 1) {
+                throw new RuntimeException("Invalid postfix expression");
+            }
+            return stack.pop().expr;
+        }
+    }
+
+    // With no arguments every section runs; otherwise only the named ones,
+    // e.g. java dsa.BenchExpressions convert
+    static boolean selected(String[] args, String section) {
+        if (args.length == 0) {
+            return true;
+        }
+        for (String arg : args) {
+            if (arg.equals(section)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("Expressions benchmarks");
+        System.out.println("==================================================");
+
+        if (selected(args, "convert")) {
+            benchConversions(100_000, 4);
+            benchConversions(20_000, 32);
+        }
+        if (selected(args, "deep")) {
+            benchDeep(20_000);
+            benchDeep(200_000);
+        }
+        if (selected(args, "file")) {
+            benchFile(500_000, 4);
+            benchFile(100_000, 32);
+        }
+        if (selected(args, "server")) {
+            benchServer(20_000, 500);
+        }
+        if (selected(args, "cache")) {
+            benchCache(200_000, 100_000);
+        }
+        if (selected(args, "evaluate")) {
+            benchEvaluate(1_000_000);
+        }
+
+        System.out.println("==================================================");
+        System.out.println("(sink " + sink + ")");
+    }
+}
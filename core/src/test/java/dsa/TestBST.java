@@ -0,0 +1,941 @@
+
+// TestBST.java - Test the BST class
+package dsa;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TestBST {
+    static int passed = 0;
+    static int failed = 0;
+
+    // Check if two lists are the same
+    static void checkEqual(ArrayList<Integer> list1, ArrayList<Integer> list2, String testName) {
+        boolean same = true;
+        if (list1.size() != list2.size()) {
+            same = false;
+        } else {
+            for (int i = 0; i < list1.size(); i++) {
+                if (!list1.get(i).equals(list2.get(i))) {
+                    same = false;
+                    break;
+                }
+            }
+        }
+
+        if (same) {
+            System.out.println("✓ PASS: " + testName);
+            passed++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            System.out.println("  Expected: " + list2);
+            System.out.println("  Got:      " + list1);
+            failed++;
+        }
+    }
+
+    // Check if boolean is true
+    static void checkTrue(boolean value, String testName) {
+        if (value) {
+            System.out.println("✓ PASS: " + testName);
+            passed++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failed++;
+        }
+    }
+
+    // Check if boolean is false
+    static void checkFalse(boolean value, String testName) {
+        if (!value) {
+            System.out.println("✓ PASS: " + testName);
+            passed++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failed++;
+        }
+    }
+
+    // Test 1: Insert and Traversals
+    static void testInsertAndTraversals() {
+        System.out.println("\n=== Test 1: Insert and Traversals ===");
+        BST tree = new BST();
+
+        // Insert: 7, 3, 9, 1, 5, 8, 10, 5, 5
+        tree.insert(7);
+        tree.insert(3);
+        tree.insert(9);
+        tree.insert(1);
+        tree.insert(5);
+        tree.insert(8);
+        tree.insert(10);
+        tree.insert(5);
+        tree.insert(5);
+
+        // Check inorder
+        ArrayList<Integer> expectedInorder = new ArrayList<>(
+                Arrays.asList(1, 3, 5, 5, 5, 7, 8, 9, 10));
+        checkEqual(tree.inorder(), expectedInorder, "Inorder traversal");
+
+        // Check preorder
+        ArrayList<Integer> expectedPreorder = new ArrayList<>(
+                Arrays.asList(7, 3, 1, 5, 5, 5, 9, 8, 10));
+        checkEqual(tree.preorder(), expectedPreorder, "Preorder traversal");
+
+        // Check postorder
+        ArrayList<Integer> expectedPostorder = new ArrayList<>(
+                Arrays.asList(1, 5, 5, 5, 3, 8, 10, 9, 7));
+        checkEqual(tree.postorder(), expectedPostorder, "Postorder traversal");
+
+        // Check level order
+        ArrayList<Integer> expectedLevel = new ArrayList<>(
+                Arrays.asList(7, 3, 9, 1, 5, 5, 5, 8, 10));
+        checkEqual(tree.levelOrder(), expectedLevel, "Level-order traversal");
+    }
+
+    // Test 2: Search and Remove
+    static void testSearchAndRemove() {
+        System.out.println("\n=== Test 2: Search and Remove ===");
+        BST tree = new BST();
+
+        // Insert: 5, 3, 7, 2, 4, 6, 8, 5, 5
+        tree.insert(5);
+        tree.insert(3);
+        tree.insert(7);
+        tree.insert(2);
+        tree.insert(4);
+        tree.insert(6);
+        tree.insert(8);
+        tree.insert(5);
+        tree.insert(5);
+
+        // Test search
+        checkTrue(tree.search(7), "Search for 7 (exists)");
+        checkFalse(tree.search(9), "Search for 9 (doesn't exist)");
+
+        // Remove one duplicate of 5
+        checkTrue(tree.remove(5), "Remove 5 (first time)");
+        ArrayList<Integer> after1 = new ArrayList<>(
+                Arrays.asList(2, 3, 4, 5, 5, 6, 7, 8));
+        checkEqual(tree.inorder(), after1, "After removing one 5");
+
+        // Remove more 5s
+        checkTrue(tree.remove(5), "Remove 5 (second time)");
+        checkTrue(tree.remove(5), "Remove 5 (third time)");
+        checkFalse(tree.search(5), "Search for 5 after removing all");
+
+        // Remove node with two children
+        checkTrue(tree.remove(6), "Remove 6 (node with two children)");
+        checkTrue(tree.inorder().contains(7), "Tree still has 7");
+    }
+
+    // Test 3: Balanced mode with sorted input
+    static void testBalancedMode() {
+        System.out.println("\n=== Test 3: Balanced Mode ===");
+        BST tree = new BST(true);
+
+        // Sorted keys would turn a plain BST into a linked list
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            tree.insert(i);
+        }
+        checkTrue(tree.getSize() == n, "Size after " + n + " sorted inserts");
+        // AVL height is at most 1.44 * log2(n)
+        checkTrue(tree.getHeight() <= 25, "Height stays logarithmic (" + tree.getHeight() + ")");
+        checkTrue(tree.search(0) && tree.search(n - 1), "Search first and last key");
+        checkFalse(tree.search(n), "Search for missing key");
+
+        // Duplicates keep one node with a count
+        tree.insert(500);
+        tree.insert(500);
+        checkTrue(tree.getSize() == n, "Duplicates do not add nodes");
+        checkTrue(tree.remove(500) && tree.remove(500) && tree.search(500), "Remove duplicates one at a time");
+
+        // Remove every even key
+        for (int i = 0; i < n; i += 2) {
+            tree.remove(i);
+        }
+        checkTrue(tree.getSize() == n / 2, "Size after removing half the keys");
+        checkTrue(tree.getHeight() <= 24, "Height stays logarithmic after removals");
+        checkFalse(tree.search(500), "Search for removed key");
+        checkTrue(tree.search(501), "Search for kept key");
+
+        ArrayList<Integer> list = tree.inorder();
+        boolean sorted = list.size() == n / 2;
+        for (int i = 0; sorted && i < list.size(); i++) {
+            sorted = list.get(i) == 2 * i + 1;
+        }
+        checkTrue(sorted, "Inorder still sorted after rotations");
+    }
+
+    // Test 4: Removing a node whose successor has duplicates
+    static void testRemoveKeepsSuccessorCount() {
+        System.out.println("\n=== Test 4: Remove Keeps Successor Count ===");
+        BST tree = new BST();
+
+        // Insert: 5, 3, 8, 6, 6, 6
+        tree.insert(5);
+        tree.insert(3);
+        tree.insert(8);
+        tree.insert(6);
+        tree.insert(6);
+        tree.insert(6);
+
+        checkTrue(tree.remove(5), "Remove 5 (successor 6 has count 3)");
+        ArrayList<Integer> expected = new ArrayList<>(
+                Arrays.asList(3, 6, 6, 6, 8));
+        checkEqual(tree.inorder(), expected, "All copies of 6 survive");
+        checkTrue(tree.getSize() == 3, "Size counts distinct keys");
+    }
+
+    // Test 5: Deep unbalanced tree (no StackOverflowError)
+    static void testDeepTree() {
+        System.out.println("\n=== Test 5: Deep Unbalanced Tree ===");
+        BST tree = new BST();
+
+        // Sorted keys make a chain as deep as the number of keys
+        int n = 30000;
+        for (int i = 0; i < n; i++) {
+            tree.insert(i);
+        }
+        checkTrue(tree.getHeight() == n, "Height equals number of keys");
+        checkTrue(tree.search(n - 1), "Search at the bottom of the chain");
+        checkTrue(tree.inorder().size() == n, "Inorder on deep tree");
+        checkTrue(tree.preorder().get(n - 1) == n - 1, "Preorder on deep tree");
+        checkTrue(tree.postorder().get(0) == n - 1, "Postorder on deep tree");
+        checkTrue(tree.levelOrder().size() == n, "Level order on deep tree");
+        checkTrue(tree.remove(n - 1) && tree.remove(0), "Remove at both ends of the chain");
+        checkTrue(tree.getSize() == n - 2, "Size after removals");
+    }
+
+    // Test 6: Random inserts/removes agree with a TreeMap of counts
+    static void testRandomAgainstTreeMap(boolean balanced) {
+        System.out.println("\n=== Test 6: Random Operations (balanced=" + balanced + ") ===");
+        BST tree = new BST(balanced);
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        Random random = new Random(42);
+
+        boolean agree = true;
+        for (int i = 0; i < 20000 && agree; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                boolean expected = counts.containsKey(key);
+                agree = tree.remove(key) == expected;
+                if (expected) {
+                    counts.merge(key, -1, Integer::sum);
+                    counts.remove(key, 0);
+                }
+            } else {
+                tree.insert(key);
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+        checkTrue(agree, "remove() result matches reference");
+        checkTrue(tree.getSize() == counts.size(), "Size matches reference");
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+            for (int i = 0; i < e.getValue(); i++) {
+                expected.add(e.getKey());
+            }
+        }
+        checkEqual(tree.inorder(), expected, "Inorder matches reference");
+    }
+
+    // Check if an int[] matches a list
+    static void checkArray(int[] array, ArrayList<Integer> expected, String testName) {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int value : array) {
+            list.add(value);
+        }
+        checkEqual(list, expected, testName);
+    }
+
+    // Test 7: Primitive traversal API
+    static void testPrimitiveTraversals() {
+        System.out.println("\n=== Test 7: Primitive Traversals ===");
+        BST tree = new BST();
+
+        // Insert: 7, 3, 9, 1, 5, 8, 10, 5, 5
+        int[] keys = {7, 3, 9, 1, 5, 8, 10, 5, 5};
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        checkTrue(tree.getTotal() == 9, "Total counts duplicates");
+
+        checkArray(tree.inorderArray(), tree.inorder(), "inorderArray matches inorder");
+        checkArray(tree.preorderArray(), tree.preorder(), "preorderArray matches preorder");
+        checkArray(tree.postorderArray(), tree.postorder(), "postorderArray matches postorder");
+        checkArray(tree.levelOrderArray(), tree.levelOrder(), "levelOrderArray matches levelOrder");
+
+        ArrayList<Integer> visited = new ArrayList<>();
+        tree.forEachPostorder(visited::add);
+        checkEqual(visited, tree.postorder(), "forEachPostorder matches postorder");
+
+        checkArray(tree.inorderRuns(), new ArrayList<>(
+                Arrays.asList(1, 1, 3, 1, 5, 3, 7, 1, 8, 1, 9, 1, 10, 1)), "inorderRuns");
+
+        int[] calls = new int[1];
+        tree.visitLevelOrder((key, count) -> calls[0]++);
+        checkTrue(calls[0] == tree.getSize(), "Visitor called once per node");
+
+        tree.remove(5);
+        checkTrue(tree.getTotal() == 8, "Total after removing a duplicate");
+        checkTrue(new BST().inorderArray().length == 0, "Empty tree gives empty array");
+    }
+
+    // Drain an iterator into a list
+    static ArrayList<Integer> drain(PrimitiveIterator.OfInt it) {
+        ArrayList<Integer> list = new ArrayList<>();
+        while (it.hasNext()) {
+            list.add(it.nextInt());
+        }
+        return list;
+    }
+
+    // Test 8: Lazy iterators and streams
+    static void testIteratorsAndStreams() {
+        System.out.println("\n=== Test 8: Iterators and Streams ===");
+        BST tree = new BST();
+
+        // Insert: 7, 3, 9, 1, 5, 8, 10, 5, 5
+        int[] keys = {7, 3, 9, 1, 5, 8, 10, 5, 5};
+        for (int key : keys) {
+            tree.insert(key);
+        }
+
+        checkEqual(drain(tree.inorderIterator()), tree.inorder(), "inorderIterator");
+        checkEqual(drain(tree.preorderIterator()), tree.preorder(), "preorderIterator");
+        checkEqual(drain(tree.postorderIterator()), tree.postorder(), "postorderIterator");
+        checkEqual(drain(tree.levelOrderIterator()), tree.levelOrder(), "levelOrderIterator");
+        checkEqual(drain(tree.inorderIterator(4)), new ArrayList<>(
+                Arrays.asList(5, 5, 5, 7, 8, 9, 10)), "inorderIterator from 4");
+        checkFalse(tree.inorderIterator(11).hasNext(), "inorderIterator past the end");
+
+        ArrayList<Integer> firstThree = new ArrayList<>();
+        tree.inorderStream().limit(3).forEach(firstThree::add);
+        checkEqual(firstThree, new ArrayList<>(Arrays.asList(1, 3, 5)), "inorderStream limit 3");
+
+        ArrayList<Integer> levels = new ArrayList<>();
+        tree.levelOrderStream().forEach(levels::add);
+        checkEqual(levels, tree.levelOrder(), "levelOrderStream");
+
+        // Parallel stream over a bigger balanced tree
+        BST big = new BST(true);
+        long expectedSum = 0;
+        for (int i = 0; i < 200000; i++) {
+            big.insert(i % 50000);
+            expectedSum += i % 50000;
+        }
+        checkTrue(big.inorderStream().parallel().asLongStream().sum() == expectedSum,
+                "Parallel inorderStream sum");
+        checkTrue(big.inorderStream().parallel().count() == big.getTotal(),
+                "Parallel inorderStream count");
+        int[] parallelArray = big.inorderStream().parallel().toArray();
+        checkTrue(Arrays.equals(parallelArray, big.inorderArray()), "Parallel inorderStream keeps order");
+    }
+
+    // Test 9: Order statistics against a sorted list
+    static void testOrderStatistics(boolean balanced) {
+        System.out.println("\n=== Test 9: Order Statistics (balanced=" + balanced + ") ===");
+        BST tree = new BST(balanced);
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            tree.insert(random.nextInt(1000));
+        }
+        for (int i = 0; i < 2000; i++) {
+            tree.remove(random.nextInt(1000));
+        }
+        ArrayList<Integer> sorted = tree.inorder();
+
+        boolean selectOk = true;
+        for (int k = 0; k < sorted.size(); k++) {
+            selectOk &= tree.select(k) == sorted.get(k);
+        }
+        checkTrue(selectOk, "select(k) matches inorder().get(k)");
+
+        boolean rankOk = true;
+        boolean rangeOk = true;
+        boolean floorOk = true;
+        for (int key = -1; key <= 1001; key++) {
+            int below = 0;
+            Integer floor = null;
+            Integer ceiling = null;
+            for (int value : sorted) {
+                if (value < key) {
+                    below++;
+                }
+                if (value <= key) {
+                    floor = value;
+                }
+                if (value >= key && ceiling == null) {
+                    ceiling = value;
+                }
+            }
+            rankOk &= tree.rank(key) == below;
+            floorOk &= Objects.equals(tree.floor(key), floor)
+                    && Objects.equals(tree.ceiling(key), ceiling);
+
+            int hi = key + 37;
+            int inRange = 0;
+            for (int value : sorted) {
+                if (value >= key && value <= hi) {
+                    inRange++;
+                }
+            }
+            rangeOk &= tree.countInRange(key, hi) == inRange
+                    && drain(tree.rangeIterator(key, hi)).size() == inRange;
+        }
+        checkTrue(rankOk, "rank(key) counts smaller keys");
+        checkTrue(rangeOk, "countInRange and rangeIterator agree");
+        checkTrue(floorOk, "floor and ceiling");
+        checkTrue(tree.countInRange(5, 4) == 0, "Empty range");
+        checkTrue(tree.inorderStream().spliterator().getExactSizeIfKnown() == tree.getTotal(),
+                "inorderStream is SIZED");
+
+        // plain tree of 1..8 inserted in order: the root is the first key,
+        // so a split must not cut at it and hand out an empty prefix
+        BST chain = new BST();
+        for (int key = 1; key <= 8; key++) {
+            chain.insert(key);
+        }
+        Spliterator.OfInt suffix = chain.inorderStream().spliterator();
+        Spliterator.OfInt prefix = suffix.trySplit();
+        checkTrue(prefix != null && prefix.estimateSize() == 1 && suffix.estimateSize() == 7,
+                "Split leaves both halves non-empty");
+    }
+
+    // Test 10: ConcurrentBST with several writer threads
+    static void testConcurrentBST() throws InterruptedException {
+        System.out.println("\n=== Test 10: ConcurrentBST ===");
+        ConcurrentBST tree = new ConcurrentBST();
+
+        // Every thread inserts 0..999 three times, then removes each key once
+        int threads = 4;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int round = 0; round < 3; round++) {
+                    for (int key = 0; key < 1000; key++) {
+                        tree.insert(key);
+                    }
+                }
+                for (int key = 0; key < 1000; key++) {
+                    tree.remove(key);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        checkTrue(tree.getSize() == 1000, "Size after concurrent inserts");
+        checkTrue(tree.getTotal() == 2 * threads * 1000, "Total after concurrent inserts/removes");
+        int[] keys = tree.inorderArray();
+        boolean ok = keys.length == 2 * threads * 1000;
+        for (int i = 0; ok && i < keys.length; i++) {
+            ok = keys[i] == i / (2 * threads);
+        }
+        checkTrue(ok, "Inorder has every key " + (2 * threads) + " times");
+
+        // Remove everything from several threads at once
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int key = 0; key < 1000; key++) {
+                    tree.remove(key);
+                    tree.remove(key);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        checkTrue(tree.getSize() == 0 && tree.getTotal() == 0, "Empty after concurrent removes");
+        checkFalse(tree.search(5), "Search after removing all");
+        checkFalse(tree.remove(5), "Remove from empty tree");
+    }
+
+    // Test 11: ArrayBST matches BST and reuses freed slots
+    static void testArrayBST(boolean balanced) {
+        System.out.println("\n=== Test 11: ArrayBST (balanced=" + balanced + ") ===");
+        ArrayBST array = new ArrayBST(balanced);
+        BST tree = new BST(balanced);
+        checkTrue(new ArrayBST().isBalanced() == new BST().isBalanced(), "Default constructor matches BST");
+        Random random = new Random(11);
+
+        boolean agree = true;
+        for (int i = 0; i < 20000 && agree; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                agree = array.remove(key) == tree.remove(key);
+            } else {
+                array.insert(key);
+                tree.insert(key);
+            }
+        }
+        checkTrue(agree, "remove() results match BST");
+        checkTrue(array.getSize() == tree.getSize() && array.getTotal() == tree.getTotal(),
+                "Size and total match BST");
+        checkEqual(array.inorder(), tree.inorder(), "Inorder matches BST");
+        checkEqual(array.preorder(), tree.preorder(), "Preorder matches BST");
+        checkEqual(array.postorder(), tree.postorder(), "Postorder matches BST");
+        checkEqual(array.levelOrder(), tree.levelOrder(), "Level order matches BST");
+        checkTrue(array.search(tree.select(0)), "Search finds smallest key");
+
+        // Emptying and refilling the tree reuses the same slots
+        int capacity = array.capacity();
+        for (int key = 0; key < 500; key++) {
+            while (array.remove(key)) {
+                // drop every copy
+            }
+        }
+        checkTrue(array.getSize() == 0 && array.getTotal() == 0, "Empty after removing everything");
+        for (int key = 0; key < 500; key++) {
+            array.insert(key);
+        }
+        checkTrue(array.capacity() == capacity, "Refilling reuses freed slots");
+    }
+
+    // Test 12: Bulk load and set operations
+    static void testBulkOperations() {
+        System.out.println("\n=== Test 12: Bulk Operations ===");
+        int[] sorted = new int[100000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i / 2; // every key twice
+        }
+        BST tree = BST.fromSorted(sorted);
+        checkTrue(tree.getSize() == 50000 && tree.getTotal() == 100000, "fromSorted size and total");
+        checkTrue(tree.getHeight() == 16, "fromSorted is perfectly balanced (" + tree.getHeight() + ")");
+        checkTrue(Arrays.equals(tree.inorderArray(), sorted), "fromSorted inorder");
+        checkTrue(tree.select(99999) == 49999 && tree.rank(10) == 20, "fromSorted keeps subtree sizes");
+
+        boolean threw = false;
+        try {
+            BST.fromSorted(new int[] {1, 3, 2});
+        } catch (IllegalArgumentException e) {
+            threw = true;
+        }
+        checkTrue(threw, "fromSorted rejects unsorted input");
+
+        BST unsorted = BST.fromUnsorted(new int[] {5, 1, 5, 3, 9, 1, 5});
+        checkEqual(unsorted.inorder(), new ArrayList<>(
+                Arrays.asList(1, 1, 3, 5, 5, 5, 9)), "fromUnsorted");
+        checkTrue(BST.fromSorted(new int[0]).getSize() == 0, "fromSorted on empty input");
+
+        // a = {1, 2x2, 3x3}, b = {2, 3x5, 4}
+        BST a = BST.fromUnsorted(new int[] {1, 2, 2, 3, 3, 3});
+        BST b = BST.fromUnsorted(new int[] {2, 3, 3, 3, 3, 3, 4});
+        checkEqual(a.union(b).inorder(), new ArrayList<>(
+                Arrays.asList(1, 2, 2, 3, 3, 3, 3, 3, 4)), "union takes max counts");
+        checkEqual(a.intersection(b).inorder(), new ArrayList<>(
+                Arrays.asList(2, 3, 3, 3)), "intersection takes min counts");
+        checkEqual(a.difference(b).inorder(), new ArrayList<>(
+                Arrays.asList(1, 2)), "difference subtracts counts");
+
+        a.addAll(b);
+        checkEqual(a.inorder(), new ArrayList<>(
+                Arrays.asList(1, 2, 2, 2, 3, 3, 3, 3, 3, 3, 3, 3, 4)), "addAll sums counts");
+        checkTrue(a.getSize() == 4 && a.getTotal() == 13, "addAll size and total");
+
+        // Small batch goes through insert
+        tree.addAll(BST.fromSorted(new int[] {-1, 7}));
+        checkTrue(tree.getTotal() == 100002 && tree.select(0) == -1 && tree.rank(8) == 18,
+                "addAll with a small tree");
+        tree.insert(60000);
+        checkTrue(tree.remove(60000) && tree.remove(0), "Tree stays usable after bulk load");
+    }
+
+    // Test 13: Snapshot save / open / thaw
+    static void testSnapshot() throws IOException {
+        System.out.println("\n=== Test 13: Snapshot ===");
+        BST tree = new BST();
+        // Insert: 7, 3, 9, 1, 5, 8, 10, 5, 5
+        int[] keys = {7, 3, 9, 1, 5, 8, 10, 5, 5};
+        for (int key : keys) {
+            tree.insert(key);
+        }
+
+        File file = File.createTempFile("bst", ".snapshot");
+        file.deleteOnExit();
+        tree.save(file.getPath());
+        BSTSnapshot snapshot = BSTSnapshot.open(file.getPath());
+
+        checkTrue(snapshot.getSize() == 7 && snapshot.getTotal() == 9, "Snapshot size and total");
+        checkEqual(snapshot.inorder(), tree.inorder(), "Snapshot inorder");
+        checkTrue(snapshot.search(8) && !snapshot.search(6), "Snapshot search");
+        checkTrue(snapshot.count(5) == 3 && snapshot.count(4) == 0, "Snapshot count");
+        checkTrue(snapshot.floor(6) == 5 && snapshot.ceiling(6) == 7, "Snapshot floor/ceiling");
+        checkTrue(snapshot.floor(0) == null && snapshot.ceiling(11) == null, "Snapshot floor/ceiling out of range");
+
+        BST thawed = snapshot.thaw();
+        thawed.insert(6);
+        checkTrue(thawed.getTotal() == 10 && snapshot.getTotal() == 9, "Thawed copy is independent");
+
+        // Anything else is rejected
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a snapshot at all".getBytes());
+        }
+        boolean threw = false;
+        try {
+            BSTSnapshot.open(file.getPath());
+        } catch (IOException e) {
+            threw = true;
+        }
+        checkTrue(threw, "open() rejects a non-snapshot file");
+    }
+
+    // Test 14: Frozen (Eytzinger) layout agrees with the tree
+    static void testFrozen() {
+        System.out.println("\n=== Test 14: FrozenBST ===");
+        Random random = new Random(14);
+        boolean searchOk = true;
+        boolean orderOk = true;
+        // sizes around powers of two catch off-by-one errors in the layout
+        int[] sizes = {0, 1, 2, 3, 7, 8, 9, 100, 1023, 1024, 1025};
+        for (int n : sizes) {
+            BST tree = new BST(true);
+            for (int i = 0; i < n; i++) {
+                tree.insert(random.nextInt(3 * n + 1) - n);
+            }
+            FrozenBST frozen = tree.freeze();
+            searchOk &= frozen.getSize() == tree.getSize() && frozen.getTotal() == tree.getTotal();
+            for (int key = -n - 2; key <= 2 * n + 2; key++) {
+                searchOk &= frozen.search(key) == tree.search(key);
+                orderOk &= frozen.rank(key) == tree.rank(key)
+                        && frozen.count(key) == tree.countInRange(key, key)
+                        && Objects.equals(frozen.floor(key), tree.floor(key))
+                        && Objects.equals(frozen.ceiling(key), tree.ceiling(key));
+            }
+            orderOk &= Arrays.equals(frozen.inorderArray(), tree.inorderArray());
+        }
+        checkTrue(searchOk, "search matches BST for many sizes");
+        checkTrue(orderOk, "rank/count/floor/ceiling/inorder match BST");
+
+        BST tree = BST.fromUnsorted(new int[] {4, 2, 2, 8});
+        FrozenBST frozen = tree.freeze();
+        tree.insert(6);
+        checkFalse(frozen.search(6), "Frozen copy does not see later inserts");
+        checkEqual(frozen.thaw().inorder(), new ArrayList<>(Arrays.asList(2, 2, 4, 8)), "thaw()");
+    }
+
+    // Test 15: long, double and generic key variants
+    // Height of an AvlNode subtree, or -1 if a stored height is wrong or
+    // a node's children differ in height by more than one
+    static int avlHeight(AvlNode<?> node) {
+        if (node == null) {
+            return 0;
+        }
+        int left = avlHeight(node.left);
+        int right = avlHeight(node.right);
+        if (left < 0 || right < 0 || Math.abs(left - right) > 1
+                || node.height != 1 + Math.max(left, right)) {
+            return -1;
+        }
+        return node.height;
+    }
+
+    static void testKeyVariants() {
+        System.out.println("\n=== Test 15: Long/Double/Generic Keys ===");
+        Random random = new Random(15);
+        BST ints = new BST(true);
+        LongBST longs = new LongBST(true);
+        DoubleBST doubles = new DoubleBST(true);
+        GenericBST<Integer, Void> generic = new GenericBST<>(true);
+
+        boolean agree = true;
+        for (int i = 0; i < 20000 && agree; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                boolean expected = ints.remove(key);
+                agree = longs.remove(key) == expected && doubles.remove(key) == expected
+                        && generic.remove(key) == expected;
+            } else {
+                ints.insert(key);
+                longs.insert(key);
+                doubles.insert(key);
+                generic.insert(key);
+            }
+        }
+        checkTrue(agree, "remove() results agree across key types");
+
+        ArrayList<Integer> expected = ints.inorder();
+        ArrayList<Integer> fromLongs = new ArrayList<>();
+        longs.forEachInorder(key -> fromLongs.add((int) key));
+        ArrayList<Integer> fromDoubles = new ArrayList<>();
+        doubles.forEachInorder(key -> fromDoubles.add((int) key));
+        checkEqual(fromLongs, expected, "LongBST inorder");
+        checkEqual(fromDoubles, expected, "DoubleBST inorder");
+        checkEqual(generic.inorder(), expected, "GenericBST inorder");
+        checkTrue(longs.getSize() == ints.getSize() && generic.getTotal() == ints.getTotal(),
+                "Sizes agree across key types");
+        checkTrue(avlHeight(longs.root) >= 0 && avlHeight(doubles.root) >= 0 && avlHeight(generic.root) >= 0,
+                "AVL invariants hold after random updates");
+
+        // sorted input is the worst case for the shared rebalancing code
+        LongBST sortedLongs = new LongBST(true);
+        DoubleBST sortedDoubles = new DoubleBST(true);
+        GenericBST<Integer, Void> sortedGeneric = new GenericBST<>(true);
+        for (int i = 0; i < 10000; i++) {
+            sortedLongs.insert(i);
+            sortedDoubles.insert(i);
+            sortedGeneric.insert(i);
+        }
+        for (int i = 0; i < 10000; i += 3) {
+            sortedLongs.remove(i);
+            sortedDoubles.remove(i);
+            sortedGeneric.remove(i);
+        }
+        double limit = 1.45 * Math.log(sortedLongs.getSize() + 2) / Math.log(2);
+        checkTrue(avlHeight(sortedLongs.root) >= 0 && sortedLongs.getHeight() <= limit,
+                "LongBST AVL after sorted input");
+        checkTrue(avlHeight(sortedDoubles.root) >= 0 && sortedDoubles.getHeight() <= limit,
+                "DoubleBST AVL after sorted input");
+        checkTrue(avlHeight(sortedGeneric.root) >= 0 && sortedGeneric.getHeight() <= limit,
+                "GenericBST AVL after sorted input");
+
+        // Keys beyond the int range
+        longs.insert(Long.MAX_VALUE);
+        checkTrue(longs.search(Long.MAX_VALUE) && longs.floor(Long.MAX_VALUE - 1) < Long.MAX_VALUE,
+                "LongBST handles large keys");
+
+        // Double ordering follows Double.compare
+        DoubleBST special = new DoubleBST();
+        special.insert(0.0);
+        special.insert(Double.NaN);
+        special.insert(-0.0);
+        checkTrue(special.search(Double.NaN) && special.getSize() == 3, "DoubleBST stores NaN and -0.0");
+        checkTrue(special.ceiling(1.0).isNaN(), "NaN sorts last");
+
+        // Sorted map with a custom comparator
+        GenericBST<String, Integer> map = new GenericBST<>(String.CASE_INSENSITIVE_ORDER, true);
+        checkTrue(map.put("b", 2) == null && map.put("A", 1) == null, "put new keys");
+        checkTrue(map.put("B", 20) == 2, "put replaces value, comparator says b == B");
+        checkTrue(map.get("a") == 1 && map.get("c") == null, "get");
+        ArrayList<String> keys = new ArrayList<>();
+        map.forEachEntry((key, value) -> keys.add(key + "=" + value));
+        checkTrue(keys.toString().equals("[A=1, b=20]"), "forEachEntry in order " + keys);
+        checkTrue(map.getSize() == 2 && map.getTotal() == 2, "put counts each key once");
+        checkTrue(map.remove("A") && map.get("A") == null, "remove drops the value");
+    }
+
+    // Test 16: batched insert/remove against a reference multiset
+    static void testBatchUpdates(boolean balanced) {
+        System.out.println("\n=== Test 16: Batch Updates (balanced=" + balanced + ") ===");
+        BST tree = new BST(balanced);
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        Random random = new Random(7);
+
+        boolean agree = true;
+        for (int round = 0; round < 200 && agree; round++) {
+            // mostly small batches (finger pass), now and then a big one (rebuild)
+            int length = round % 25 == 0 ? 3000 : 1 + random.nextInt(60);
+            int range = round % 2 == 0 ? 2000 : 50;
+            int[] batch = new int[length];
+            int base = random.nextInt(5000);
+            for (int i = 0; i < length; i++) {
+                batch[i] = base + random.nextInt(range);
+            }
+            int[] copy = batch.clone();
+
+            if (random.nextInt(3) == 0) {
+                int expected = 0;
+                for (int key : batch) {
+                    Integer count = counts.get(key);
+                    if (count != null) {
+                        expected++;
+                        counts.merge(key, -1, Integer::sum);
+                        counts.remove(key, 0);
+                    }
+                }
+                agree = tree.removeAll(batch) == expected;
+            } else {
+                tree.insertAll(batch);
+                for (int key : batch) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+            agree = agree && Arrays.equals(batch, copy) && tree.getSize() == counts.size();
+        }
+        checkTrue(agree, "removeAll() counts and sizes match reference");
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+            for (int i = 0; i < e.getValue(); i++) {
+                expected.add(e.getKey());
+            }
+        }
+        checkEqual(tree.inorder(), expected, "Inorder matches reference");
+        checkTrue(tree.getTotal() == expected.size(), "Total matches reference");
+
+        // subtree sizes stay right: select/rank agree with the sorted list
+        boolean ranked = true;
+        for (int k = 0; k < expected.size(); k += 97) {
+            ranked &= tree.select(k) == expected.get(k);
+            ranked &= tree.rank(expected.get(k)) == expected.indexOf(expected.get(k));
+        }
+        checkTrue(ranked, "select/rank after batches");
+
+        if (balanced) {
+            double limit = 1.45 * Math.log(tree.getSize() + 2) / Math.log(2);
+            checkTrue(tree.getHeight() <= limit, "AVL height bound, height = " + tree.getHeight());
+
+            // a sorted run appended past the maximum stays balanced too
+            BST grown = BST.fromUnsorted(new int[] {1, 2, 3, 4, 5, 6, 7, 8});
+            for (int start = 100; start < 20100; start += 1000) {
+                int[] run = new int[1000];
+                for (int i = 0; i < run.length; i++) {
+                    run[i] = start + i;
+                }
+                grown.insertAll(run);
+            }
+            limit = 1.45 * Math.log(grown.getSize() + 2) / Math.log(2);
+            checkTrue(grown.getSize() == 20008 && grown.getHeight() <= limit,
+                    "Sorted batches stay balanced, height = " + grown.getHeight());
+        }
+
+        BST empty = new BST(balanced);
+        checkTrue(empty.removeAll(new int[] {1, 2}) == 0, "removeAll on empty tree");
+        empty.insertAll(new int[] {5, 5, 5});
+        checkTrue(empty.getSize() == 1 && empty.getTotal() == 3, "insertAll into empty tree");
+        checkTrue(empty.removeAll(new int[] {5, 5, 5, 5}) == 3 && empty.getTotal() == 0,
+                "removeAll stops at the stored count");
+    }
+
+    // Test 17: persistent tree - every version stays as it was
+    static void testPersistent() {
+        System.out.println("\n=== Test 17: PersistentBST ===");
+        PersistentBST empty = new PersistentBST();
+        PersistentBST v1 = empty.insert(7).insert(3).insert(9).insert(3);
+        PersistentBST v2 = v1.remove(3).remove(7).insert(12);
+        checkEqual(empty.inorder(), new ArrayList<>(), "Empty version stays empty");
+        checkEqual(v1.inorder(), new ArrayList<>(Arrays.asList(3, 3, 7, 9)), "Old version unchanged");
+        checkEqual(v2.inorder(), new ArrayList<>(Arrays.asList(3, 9, 12)), "New version");
+        checkTrue(v2.remove(100) == v2, "Removing a missing key returns the same version");
+        checkTrue(v1.count(3) == 2 && v2.count(3) == 1 && v2.floor(11) == 9 && v2.ceiling(10) == 12,
+                "count/floor/ceiling per version");
+
+        // random updates against a reference, keeping a few old versions
+        PersistentBST tree = new PersistentBST();
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        ArrayList<PersistentBST> versions = new ArrayList<>();
+        ArrayList<int[]> expectedVersions = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                tree = tree.remove(key);
+                if (counts.merge(key, -1, Integer::sum) <= 0) {
+                    counts.remove(key);
+                }
+            } else {
+                tree = tree.insert(key);
+                counts.merge(key, 1, Integer::sum);
+            }
+            if (i % 2000 == 0) {
+                versions.add(tree);
+                expectedVersions.add(tree.inorderArray());
+            }
+        }
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+            for (int i = 0; i < e.getValue(); i++) {
+                expected.add(e.getKey());
+            }
+        }
+        checkEqual(tree.inorder(), expected, "Inorder matches reference");
+        checkTrue(tree.getSize() == counts.size() && tree.getTotal() == expected.size(),
+                "Size and total match reference");
+        double limit = 1.45 * Math.log(tree.getSize() + 2) / Math.log(2);
+        checkTrue(tree.getHeight() <= limit, "AVL height bound, height = " + tree.getHeight());
+
+        boolean unchanged = true;
+        for (int i = 0; i < versions.size(); i++) {
+            unchanged &= Arrays.equals(versions.get(i).inorderArray(), expectedVersions.get(i));
+        }
+        checkTrue(unchanged, "Saved versions did not change");
+        checkEqual(tree.thaw().inorder(), expected, "thaw() copies the version");
+    }
+
+    // Test 18: Tree Metrics (the suite also runs with -Ddsa.metrics=true)
+    static void testTreeMetrics() throws JMException {
+        System.out.println("\n=== Test 18: Tree Metrics (enabled=" + Metrics.ENABLED + ") ===");
+        BST tree = new BST();
+        for (int key : new int[] {50, 30, 70, 30, 30, 20}) {
+            tree.insert(key);
+        }
+        TreeMetrics metrics = Metrics.register("test-tree", tree);
+        checkTrue(metrics.getHeight() == 3 && metrics.getNodeCount() == 4 && metrics.getSize() == 4,
+                "Height, node count and size");
+        checkTrue(Math.abs(metrics.getDuplicateRatio() - 2.0 / 6) < 1e-9, "Duplicate ratio");
+
+        tree.search(50); // 1 node looked at
+        tree.search(20); // 3
+        tree.search(99); // 2
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("dsa:type=BST,name=test-tree");
+        if (Metrics.ENABLED) {
+            checkTrue(metrics.getSearches() == 3 && metrics.getAverageSearchPathLength() == 2.0,
+                    "Searches and average path length");
+            checkTrue(Integer.valueOf(4).equals(server.getAttribute(name, "NodeCount")), "Node count over JMX");
+            Metrics.unregister("test-tree");
+            checkFalse(server.isRegistered(name), "Unregistered");
+        } else {
+            checkTrue(metrics.getSearches() == 0, "Searches not counted when disabled");
+            checkFalse(server.isRegistered(name), "Nothing registered when disabled");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException, JMException {
+        System.out.println("Running BST Tests...");
+        System.out.println("==================================================");
+
+        testInsertAndTraversals();
+        testSearchAndRemove();
+        testBalancedMode();
+        testRemoveKeepsSuccessorCount();
+        testDeepTree();
+        testRandomAgainstTreeMap(false);
+        testRandomAgainstTreeMap(true);
+        testPrimitiveTraversals();
+        testIteratorsAndStreams();
+        testOrderStatistics(false);
+        testOrderStatistics(true);
+        testConcurrentBST();
+        testArrayBST(false);
+        testArrayBST(true);
+        testBulkOperations();
+        testSnapshot();
+        testFrozen();
+        testKeyVariants();
+        testBatchUpdates(false);
+        testBatchUpdates(true);
+        testPersistent();
+        testTreeMetrics();
+
+        System.out.println("\n==================================================");
+        System.out.println("Tests Passed: " + passed);
+        System.out.println("Tests Failed: " + failed);
+        System.out.println("==================================================");
+
+        if (failed == 0) {
+            System.out.println("\n✓ All tests passed!");
+        } else {
+            System.exit(1); // fails the Maven build
+        }
+    }
+}
\ No newline at end of file
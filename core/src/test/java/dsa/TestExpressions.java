@@ -0,0 +1,779 @@
+// TestExpressions.java - Test the Expressions class
+package dsa;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TestExpressions {
+    static int passed = 0;
+    static int failed = 0;
+
+    // Check if two strings are equal
+    static void checkEqual(String value1, String value2, String testName) {
+        if (value1.equals(value2)) {
+            System.out.println("✓ PASS: " + testName);
+            passed++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            System.out.println("  Expected: " + value2);
+            System.out.println("  Got:      " + value1);
+            failed++;
+        }
+    }
+
+    // Check if boolean is true
+    static void checkTrue(boolean value, String testName) {
+        if (value) {
+            System.out.println("✓ PASS: " + testName);
+            passed++;
+        } else {
+            System.out.println("✗ FAIL: " + testName);
+            failed++;
+        }
+    }
+
+    // Test roundtrip conversions
+    static void testRoundtrip() {
+        System.out.println("\n=== Test: Roundtrip Conversions ===");
+
+        String[] testCases = {
+                "A * ( B + C ) - D / E",
+                "3 + 4 * 2 / ( 1 - 5 ) ^ 2 ^ 3",
+                "-A + B",
+                "A * -B + C",
+                "-(A + B) * C"
+        };
+
+        for (String infix : testCases) {
+            try {
+                // Convert infix -> postfix -> infix -> postfix
+                String postfix1 = Expressions.infixToPostfix(infix);
+                String backToInfix = Expressions.postfixToInfix(postfix1);
+                String postfix2 = Expressions.infixToPostfix(backToInfix);
+
+                // The two postfix versions should be the same
+                checkEqual(postfix2, postfix1, "Roundtrip: " + infix);
+            } catch (Exception e) {
+                System.out.println("✗ FAIL: Error with " + infix);
+                System.out.println("  " + e.getMessage());
+                failed++;
+            }
+        }
+    }
+
+    // Test lexer tokens: kinds, spans and operators
+    static void testLexer() {
+        System.out.println("\n=== Test: Lexer ===");
+
+        StringBuilder seen = new StringBuilder();
+        ExprLexer lexer = new ExprLexer("  x_1*(3.5 -y)^~ $");
+        ExprLexer.Kind kind;
+        while ((kind = lexer.next()) != ExprLexer.Kind.END) {
+            seen.append(kind).append(':').append(lexer.text());
+            if (kind == ExprLexer.Kind.OPERATOR) {
+                seen.append(':').append(lexer.operator().priority);
+            }
+            seen.append(' ');
+        }
+        checkEqual(seen.toString().trim(),
+                "OPERAND:x_1 OPERATOR:*:3 LEFT_PAREN:( OPERAND:3.5 OPERATOR:-:2 "
+                        + "OPERAND:y RIGHT_PAREN:) OPERATOR:^:4 OPERATOR:~:5 OTHER:$",
+                "Token kinds and text");
+
+        lexer = new ExprLexer("ab + cd", 5, 7);
+        lexer.next();
+        checkEqual(lexer.start() + "-" + lexer.end() + " " + lexer.next(), "5-7 END", "Sub-range lexing");
+        checkEqual(String.valueOf(new ExprLexer(" \t ").next()), "END", "Blank input");
+    }
+
+    // Test known conversions in both directions
+    static void testConversions() {
+        System.out.println("\n=== Test: Conversions ===");
+
+        checkEqual(Expressions.infixToPostfix("A*(B+C)-D/E"), "A B C + * D E / -", "No spaces needed");
+        checkEqual(Expressions.infixToPostfix("-x1 ^ 2"), "x1 ~ 2 ^", "Unary minus binds tighter than ^");
+        checkEqual(Expressions.infixToPostfix("a - -b"), "a b ~ -", "Minus after an operator is unary");
+        checkEqual(Expressions.infixToPostfix(".5 * _k"), ".5 _k *", "Operands may start with . or _");
+        checkEqual(Expressions.postfixToInfix("A B C + * D E / -"), "A * (B + C) - D / E", "Postfix to infix");
+        checkEqual(Expressions.postfixToInfix("a b-c+"), "a - b + c", "Postfix operators need no spaces");
+
+        StringBuilder out = new StringBuilder("> ");
+        Expressions.infixToPostfix("2 ^ 3 ^ 2", out);
+        checkEqual(out.toString(), "> 2 3 2 ^ ^", "Append into a caller's buffer");
+
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("(A + B")), "Mismatched parentheses", "Unclosed (");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("A + B)")), "Mismatched parentheses", "Extra )");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("1 2 + 3")), "Missing operator before 2",
+                "Adjacent numbers");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("a b")), "Missing operator before b", "Adjacent names");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("(a) b")), "Missing operator before b",
+                "Operand after )");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("a (b)")), "Missing operator before (",
+                "( after operand");
+        checkEqual(Expressions.infixToPostfix("(a) - (b)"), "a b -", "Operator between parentheses");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("a ~ b")), "Missing operator before ~",
+                "Prefix operator after operand");
+        checkEqual(Expressions.infixToPostfix("a - ~b"), "a b ~ -", "Prefix operator after operator");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("a +")), "Missing operand after +",
+                "Dangling operator");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("-")), "Missing operand after -", "Lone prefix minus");
+        checkEqual(Expressions.infixToPostfix(""), "", "Empty input");
+        checkEqual(errorOf(() -> Expressions.postfixToInfix("A +")), "Not enough operands for +", "Short postfix");
+        checkEqual(errorOf(() -> Expressions.postfixToInfix("A B")), "Invalid postfix expression", "Leftover operand");
+        checkEqual(errorOf(() -> Expressions.postfixToInfix("A ( B")), "Unexpected ( in postfix expression",
+                "Parenthesis in postfix");
+    }
+
+    // Test postfixToInfix on very deep expressions (written in one pass,
+    // no recursion)
+    static void testDeepExpressions() {
+        System.out.println("\n=== Test: Deep Expressions ===");
+        int n = 100_000;
+
+        // a0 a1 - a2 - ... : left-leaning, no parentheses
+        StringBuilder postfix = new StringBuilder("a0");
+        StringBuilder infix = new StringBuilder("a0");
+        for (int i = 1; i < n; i++) {
+            postfix.append(" a").append(i).append(" -");
+            infix.append(" - a").append(i);
+        }
+        checkEqual(Expressions.postfixToInfix(postfix.toString()), infix.toString(), "Left-leaning chain");
+
+        // a0 a1 ... - - - : right-leaning, one parenthesis per level
+        postfix.setLength(0);
+        infix.setLength(0);
+        for (int i = 0; i < n; i++) {
+            postfix.append('a').append(i).append(' ');
+            infix.append('a').append(i).append(i < n - 2 ? " - (" : i == n - 2 ? " - " : "");
+        }
+        for (int i = 1; i < n; i++) {
+            postfix.append(i == 1 ? "-" : " -");
+        }
+        infix.append(")".repeat(n - 2));
+        String deep = Expressions.postfixToInfix(postfix.toString());
+        checkEqual(deep, infix.toString(), "Right-leaning chain");
+        checkEqual(Expressions.infixToPostfix(deep), postfix.toString(), "Right-leaning chain round trip");
+
+        // x ~ ~ ~ ... : prefix operators nest without parentheses
+        String negations = "x" + " ~".repeat(n);
+        checkEqual(Expressions.postfixToInfix(negations), "-".repeat(n) + "x", "Nested unary minus");
+
+        StringBuilder out = new StringBuilder("> ");
+        Expressions.postfixToInfix("2 3 2 ^ ^", out);
+        checkEqual(out.toString(), "> 2 ^ 3 ^ 2", "Append infix into a caller's buffer");
+        errorOf(() -> Expressions.postfixToInfix("A B + -", out));
+        checkEqual(out.toString(), "> 2 ^ 3 ^ 2", "Buffer untouched on an error");
+    }
+
+    // Test a grammar extended through the operator table
+    static void testOperatorTable() {
+        System.out.println("\n=== Test: Operator Table ===");
+
+        OperatorTable table = OperatorTable.standard()
+                .register(Operator.binary("%", 3, false, (a, b) -> a % b))
+                .register(Operator.binary("<", 1, false, (a, b) -> a < b ? 1 : 0))
+                .register(Operator.binary("<=", 1, false, (a, b) -> a <= b ? 1 : 0))
+                .register(Operator.binary("&&", 0, false, (a, b) -> a != 0 && b != 0 ? 1 : 0))
+                .register(Operator.binary("mod", 3, false, (a, b) -> a % b))
+                .register(Operator.prefix("!", 5, a -> a == 0 ? 1 : 0))
+                .register(Operator.function("max", 2, (args, at) -> Math.max(args[at], args[at + 1])))
+                .register(Operator.function("pi", 0, (args, at) -> Math.PI));
+
+        checkEqual(Expressions.infixToPostfix("a % b * c", table), "a b % c *", "Registered %");
+        checkEqual(Expressions.infixToPostfix("a<=b && b<c", table), "a b <= b c < &&", "Longest symbol match");
+        checkEqual(Expressions.infixToPostfix("x mod 2", table), "x 2 mod", "Word operator");
+        checkEqual(Expressions.infixToPostfix("a * !b", table), "a b ! *", "Prefix operator pops nothing");
+        checkEqual(Expressions.infixToPostfix("max(a, max(b + 1, -c)) * pi()", table),
+                "a b 1 + c ~ max max pi *", "Nested function calls");
+        checkEqual(Expressions.postfixToInfix("a b 1 + c ~ max max pi *", table),
+                "max(a, max(b + 1, -c)) * pi()", "Function calls back to infix");
+        checkEqual(Expressions.postfixToInfix("a b % c %", table), "a % b % c", "Left-assoc custom operator");
+        checkEqual(Expressions.postfixToInfix("a b c % %", table), "a % (b % c)", "Right side keeps parens");
+        checkEqual(Expressions.postfixToInfix("x ! 2 mod", table), "!x mod 2", "Prefix and word operators");
+
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("max(a)", table)), "max takes 2 argument(s), got 1",
+                "Argument count checked");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("max a", table)), "Expected ( after max",
+                "Function needs (");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("(a, b)", table)),
+                "Unexpected , outside a function call", "Comma outside a call");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("(a) max(b, c)", table)), "Missing operator before max",
+                "Function after operand");
+        checkEqual(Expressions.infixToPostfix("max(a, b) - pi()", table), "a b max pi -", "Operator between calls");
+        checkEqual(errorOf(() -> Expressions.infixToPostfix("a % b")), "Missing operator before b",
+                "Standard table does not know %");
+        checkEqual(errorOf(() -> OperatorTable.standard().register(Operator.binary("a+", 1, false, null))),
+                "Bad operator symbol: \"a+\"", "Mixed symbols rejected");
+    }
+
+    // Test parse-once trees and compiled evaluation
+    static void testCompiledEvaluation() {
+        System.out.println("\n=== Test: Compiled Evaluation ===");
+
+        CompiledExpr f = Expr.parseInfix("a * x ^ 2 + b").compile("x", "a", "b");
+        checkEqual(String.valueOf(f.evaluate(3, 2, 1)), "19.0", "Slots in the given order");
+        checkEqual(String.valueOf(f.slot("b")) + f.slot("y"), "2-1", "Slot lookup");
+
+        String[] formulas = {
+                "A * ( B + C ) - D / E",
+                "3 + 4 * 2 / ( 1 - 5 ) ^ 2 ^ 3",
+                "-A + B",
+                "A * -B + C",
+                "-(A + B) * C",
+                "2.5 * A - .5 / (B - C)"
+        };
+        double A = 1.5, B = -2, C = 4, D = 7, E = 0.25;
+        double[] expected = {
+                A * (B + C) - D / E,
+                3 + 4 * 2 / Math.pow(1 - 5, Math.pow(2, 3)),
+                -A + B,
+                A * -B + C,
+                -(A + B) * C,
+                2.5 * A - .5 / (B - C)
+        };
+        for (int i = 0; i < formulas.length; i++) {
+            Expr expr = Expr.parseInfix(formulas[i]);
+            checkEqual(expr.toPostfix(), Expressions.infixToPostfix(formulas[i]), "Tree matches converter: " + formulas[i]);
+            checkEqual(Expr.parsePostfix(expr.toPostfix()).toPostfix(), expr.toPostfix(), "Postfix parse: " + formulas[i]);
+            double value = expr.compile("A", "B", "C", "D", "E").evaluate(A, B, C, D, E);
+            checkEqual(String.valueOf(value), String.valueOf(expected[i]), "Value: " + formulas[i]);
+        }
+
+        // vectorized mode agrees with one-at-a-time evaluation
+        CompiledExpr g = Expr.parseInfix("-(x - y) * x / 3 + y ^ 2").compile();
+        int rows = 1500; // not a multiple of the block size
+        double[][] columns = new double[2][rows];
+        for (int r = 0; r < rows; r++) {
+            columns[0][r] = r * 0.5 - 100;
+            columns[1][r] = Math.sin(r);
+        }
+        double[] out = new double[rows];
+        g.evaluate(columns, out);
+        boolean same = true;
+        double[] stack = new double[g.stackSize()];
+        for (int r = 0; r < rows; r++) {
+            same &= out[r] == g.evaluate(new double[] {columns[0][r], columns[1][r]}, stack);
+        }
+        checkEqual(String.valueOf(same), "true", "Vectorized matches scalar");
+
+        // registered operators and functions are called through the table
+        OperatorTable table = OperatorTable.standard()
+                .register(Operator.binary("%", 3, false, (a, b) -> a % b))
+                .register(Operator.function("max", 2, (args, at) -> Math.max(args[at], args[at + 1])));
+        CompiledExpr h = Expr.parseInfix("max(x % 4, 2) * 10", table).compile();
+        checkEqual(String.valueOf(h.evaluate(7)), "30.0", "Custom operator and function");
+        double[] hOut = new double[3];
+        h.evaluate(new double[][] {{7, 1, 9}}, hOut);
+        checkEqual(Arrays.toString(hOut), "[30.0, 20.0, 20.0]", "Custom calls vectorized");
+
+        checkEqual(errorOf(() -> Expr.parseInfix("x + y").compile("x")), "No slot for variable y",
+                "Unbound variable");
+        checkEqual(String.join(",", Expr.parseInfix("1.2.3 + x").variables()), "1.2.3,x",
+                "Operand that is not a number is a name");
+        checkEqual(Expr.parseInfix("2x + 1 * 1").optimize().toPostfix(), "2x 1 +", "Optimize a name like 2x");
+        checkEqual(String.join(",", Expr.parseInfix("b * a + b").variables()), "b,a", "Variables in order");
+    }
+
+    // Test constant folding, simplification and shared subexpressions
+    static void testOptimizer() {
+        System.out.println("\n=== Test: Optimizer ===");
+
+        checkEqual(Expressions.infixToPostfixOptimized("3 + 4 * 2 / ( 1 - 5 ) ^ 2 ^ 3"), "3.0001220703125",
+                "Constant expression folds");
+        checkEqual(Expressions.infixToPostfixOptimized("x * (1 - 5)"), "x 4 ~ *", "Negative constant as ~");
+        checkEqual(Expressions.infixToPostfixOptimized("x * 1 - 0 - y / 1"), "x y -", "Identities");
+        checkEqual(Expressions.infixToPostfixOptimized("x + 0 + (0 + y)"), "x 0 + 0 y + +",
+                "x+0 is kept: wrong for -0.0");
+        CompiledExpr reciprocal = Expr.parseInfix("1 / (x + 0)").optimize().compile("x");
+        checkEqual(String.valueOf(reciprocal.evaluate(-0.0)), "Infinity", "1/(-0.0 + 0) stays +Infinity");
+        CompiledExpr minusZero = Expr.parseInfix("1 / (x - 0)").optimize().compile("x");
+        checkEqual(String.valueOf(minusZero.evaluate(-0.0)), "-Infinity", "x-0 -> x keeps -0.0");
+        checkEqual(Expressions.infixToPostfixOptimized("--x ^ 1"), "x", "Double negation and ^1");
+        checkEqual(Expressions.infixToPostfixOptimized("a - -b + x ^ 0"), "a b + 1 +", "x - ~y and x^0");
+        checkEqual(Expressions.infixToPostfixOptimized("x * 0 + 1 / 0"), "x 0 * 1 0 / +",
+                "x*0 and division by zero are kept");
+        checkEqual(Expressions.infixToPostfixOptimized("x * 0.00001"), "x 0.00001 *", "No exponent in numbers");
+        checkEqual(Expressions.postfixToInfixOptimized("A 2 3 * + 1 ~ ~ *"), "A + 6", "Postfix side");
+
+        // repeated subexpressions become one node
+        Expr repeated = Expr.parseInfix("(a + b) * (a + b) - (a + b) / c");
+        Expr shared = repeated.optimize();
+        checkEqual(repeated.nodeCount() + " -> " + shared.nodeCount(), "13 -> 7", "Common subexpressions merged");
+        checkEqual(shared.toPostfix(), repeated.toPostfix(), "Shared tree still writes out in full");
+        CompiledExpr plain = repeated.compile("a", "b", "c");
+        CompiledExpr reused = shared.compile("a", "b", "c");
+        checkEqual(String.valueOf(reused.evaluate(2, 3, 4)), String.valueOf(plain.evaluate(2, 3, 4)),
+                "Shared node evaluates the same");
+        double[][] columns = {{2, -1, 0.5}, {3, 1, 0.25}, {4, 8, -2}};
+        double[] out = new double[3];
+        reused.evaluate(columns, out);
+        checkEqual(Arrays.toString(out), "[23.75, 0.0, 0.9375]", "Shared node vectorized");
+
+        // round trip: optimized postfix -> infix -> postfix is stable, and
+        // the optimized formula has the same value
+        String[] formulas = {
+                "x ^ (2 - 4)", "(0 - 2) ^ x", "-(1 - 3) * -x", "x - (y - (3 - 5))",
+                "(x + 2 * 3) ^ (1 - 2) ^ 2", "2 ^ 3 ^ x / (4 - 8)", "-(x) - -(-(y))", "x / (y * (2 - 3))"
+        };
+        for (String formula : formulas) {
+            String postfix = Expressions.infixToPostfixOptimized(formula);
+            String again = Expressions.infixToPostfix(Expressions.postfixToInfix(postfix));
+            checkEqual(again, postfix, "Round trip: " + formula);
+            double before = Expr.parseInfix(formula).compile("x", "y").evaluate(1.75, -0.5);
+            double after = Expr.parsePostfix(postfix).compile("x", "y").evaluate(1.75, -0.5);
+            checkEqual(String.valueOf(after), String.valueOf(before), "Same value: " + formula);
+        }
+    }
+
+    // Test file conversion: UTF-8, blank lines, error line numbers, and
+    // the same output on one thread and on several
+    static void testFileConversion() throws IOException {
+        System.out.println("\n=== Test: File Conversion ===");
+        String nl = System.lineSeparator();
+
+        Path input = Files.createTempFile("exprs", ".txt");
+        Path output = Files.createTempFile("exprs", ".out");
+        try {
+            Files.write(input, Arrays.asList("  a * (b + c)", "", "π * r ^ 2", "(x", "1 - 5"),
+                    StandardCharsets.UTF_8);
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString());
+            checkEqual(new String(Files.readAllBytes(output), StandardCharsets.UTF_8),
+                    "a b c + *" + nl + nl + "π r 2 ^ *" + nl + "# Error on line 3: Mismatched parentheses" + nl
+                            + "1 5 -" + nl,
+                    "Small file, UTF-8");
+
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString(), true, 2);
+            checkEqual(new String(Files.readAllBytes(output), StandardCharsets.UTF_8).split(nl)[4], "4 ~",
+                    "Optimized on two threads");
+
+            // --optimize must not turn a line the plain path converts into an error
+            Files.write(input, Arrays.asList("2x + 1", "1.2.3 - y"), StandardCharsets.UTF_8);
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString(), true, 1);
+            checkEqual(new String(Files.readAllBytes(output), StandardCharsets.UTF_8),
+                    "2x 1 +" + nl + "1.2.3 y -" + nl, "Optimized, operands that are not numbers");
+
+            // enough lines for many chunks, with blank and bad lines mixed in
+            StringBuilder text = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            int lineNum = 1;
+            for (int i = 0; i < 20_000; i++) {
+                if (i % 7 == 0) {
+                    text.append(" \t").append(nl);
+                    expected.append(nl);
+                    continue;
+                }
+                if (i % 101 == 0) {
+                    text.append("a +").append(nl);
+                    expected.append("# Error on line ").append(lineNum++)
+                            .append(": Not enough operands for +").append(nl);
+                    continue;
+                }
+                text.append("x").append(i).append(" y ").append(i % 10).append(" ^ -").append(nl);
+                expected.append("x").append(i).append(" - y ^ ").append(i % 10).append(nl);
+                lineNum++;
+            }
+            Files.write(input, text.toString().getBytes(StandardCharsets.UTF_8));
+            for (int threads : new int[] {1, 4}) {
+                Expressions.convertFile("postfix2infix", input.toString(), output.toString(), false, threads);
+                String result = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+                checkEqual(String.valueOf(result.equals(expected.toString())), "true",
+                        "20000 lines in order, threads=" + threads);
+
+                new FileConverter("postfix2infix", false, threads).convertMapped(input, output);
+                result = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+                checkEqual(String.valueOf(result.equals(expected.toString())), "true",
+                        "20000 lines memory-mapped, threads=" + threads);
+            }
+
+            // the mapped path reads bytes: CRLF, non-ASCII lines, and a last
+            // line without a newline must come out as the reader path has them
+            Files.write(input, "a b +\r\n\r\nπ r 2 ^ *\r\n  1 + \n∑ ~\n\t\nx 𝑦 /\nx é /".getBytes(StandardCharsets.UTF_8));
+            new FileConverter("postfix2infix", false, 1).convert(input, output); // small: reader path
+            String viaReader = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+            Path mapped = Files.createTempFile("exprs", ".mapped");
+            try {
+                new FileConverter("postfix2infix", false, 1).convertMapped(input, mapped);
+                checkEqual(new String(Files.readAllBytes(mapped), StandardCharsets.UTF_8), viaReader,
+                        "Memory-mapped matches reader");
+            } finally {
+                Files.deleteIfExists(mapped);
+            }
+            checkEqual(viaReader.split(nl, -1)[1], "", "CRLF blank line");
+            checkEqual(viaReader.split(nl, -1)[6], "# Error on line 5: Unexpected 𝑦 in postfix expression",
+                    "Characters outside the BMP");
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    // Test streaming: each line comes out as soon as it has gone in, so a
+    // producer can wait for the answer before it sends the next line
+    static void testStreaming() throws Exception {
+        System.out.println("\n=== Test: Streaming ===");
+        ExecutorService background = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true); // a stuck test must not keep the JVM alive
+            return thread;
+        });
+        try {
+            for (int threads : new int[] {1, 3}) {
+                PipedOutputStream producer = new PipedOutputStream();
+                PipedInputStream input = new PipedInputStream(producer);
+                PipedOutputStream output = new PipedOutputStream();
+                BufferedReader consumer = new BufferedReader(
+                        new InputStreamReader(new PipedInputStream(output), StandardCharsets.UTF_8));
+                Future<?> conversion = background.submit(() -> {
+                    new FileConverter("infix2postfix", false, threads).convert(input, output);
+                    output.close();
+                    return null;
+                });
+
+                String[][] exchanges = {{"a + b", "a b +"}, {"", ""}, {"(x", "# Error on line 2: Mismatched parentheses"},
+                        {"π ^ 2", "π 2 ^"}};
+                boolean inStep = true;
+                for (String[] exchange : exchanges) {
+                    producer.write((exchange[0] + "\n").getBytes(StandardCharsets.UTF_8));
+                    producer.flush();
+                    Future<String> answer = background.submit(consumer::readLine);
+                    String line;
+                    try {
+                        line = answer.get(10, TimeUnit.SECONDS);
+                    } catch (TimeoutException e) {
+                        line = "(nothing after 10 s)";
+                    }
+                    inStep &= exchange[1].equals(line);
+                }
+                producer.close();
+                conversion.get(10, TimeUnit.SECONDS);
+                checkEqual(String.valueOf(inStep), "true", "Line in, line out, threads=" + threads);
+                checkEqual(String.valueOf(consumer.readLine()), "null", "Stream ends with the input, threads=" + threads);
+            }
+        } finally {
+            background.shutdownNow();
+        }
+
+        // "-" must leave the process's stdin and stdout open
+        boolean[] closed = {false};
+        InputStream stdin = System.in;
+        Path file = Files.createTempFile("exprs", ".txt");
+        try {
+            System.setIn(new ByteArrayInputStream("a + b\n".getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() {
+                    closed[0] = true;
+                }
+            });
+            new FileConverter("infix2postfix", false, 1).convert("-", file.toString());
+            checkTrue(!closed[0], "stdin is not closed");
+            checkEqual(Files.readString(file, StandardCharsets.UTF_8), "a b +\n", "Converted from stdin");
+
+            System.out.flush();
+            new FileConverter("postfix2infix", false, 1).convert(file.toString(), "-"); // prints "a + b"
+            checkTrue(FileDescriptor.out.valid(), "stdout is not closed");
+        } finally {
+            System.setIn(stdin);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Test the conversion server with stub clients over a local socket
+    static void testServer() throws Exception {
+        System.out.println("\n=== Test: Conversion Server ===");
+        try (ConversionServer server = new ConversionServer(false)) {
+            int port = server.listen(0);
+
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                client.setSoTimeout(10_000);
+                Writer requests = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8);
+                BufferedReader responses = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+
+                // one request at a time
+                requests.write("infix2postfix a * (b + c)\n");
+                requests.flush();
+                checkEqual(responses.readLine(), "a b c + *", "Single request");
+                requests.write("postfix2infix a b c + *\n");
+                requests.flush();
+                checkEqual(responses.readLine(), "a * (b + c)", "Other mode on the same connection");
+
+                // a pipelined batch comes back in order
+                requests.write("infix2postfix (x\n\nmax 1 2\npostfix2infix π 2 ^\n");
+                requests.flush();
+                checkEqual(responses.readLine(), "# Error on line 3: Mismatched parentheses", "Error line number");
+                checkEqual(responses.readLine(), "", "Blank request, blank response");
+                checkEqual(responses.readLine(), "# Error on line 4: Unknown mode max", "Unknown mode");
+                checkEqual(responses.readLine(), "π ^ 2", "UTF-8 request");
+
+                StringBuilder batch = new StringBuilder();
+                for (int i = 0; i < 2000; i++) {
+                    batch.append("infix2postfix x").append(i).append(" - 1\n");
+                }
+                requests.write(batch.toString());
+                requests.flush();
+                boolean inOrder = true;
+                for (int i = 0; i < 2000; i++) {
+                    inOrder &= ("x" + i + " 1 -").equals(responses.readLine());
+                }
+                checkEqual(String.valueOf(inOrder), "true", "2000 pipelined requests in order");
+            }
+
+            // a second client while the server keeps running
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                client.setSoTimeout(10_000);
+                client.getOutputStream().write("postfix2infix 1 2 3 ^ ^\n".getBytes(StandardCharsets.UTF_8));
+                BufferedReader responses = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                checkEqual(responses.readLine(), "1 ^ 2 ^ 3", "Second connection");
+            }
+        }
+
+        // stdin mode: the same protocol over any pair of streams
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ConversionServer(true).serve(
+                new ByteArrayInputStream("infix2postfix 2 * 3 + x\n".getBytes(StandardCharsets.UTF_8)), out);
+        checkEqual(out.toString("UTF-8"), "6 x +\n", "Streams, optimized");
+
+        // mode and expression may be separated by a tab
+        out.reset();
+        new ConversionServer(false).serve(
+                new ByteArrayInputStream("postfix2infix\ta b +\n".getBytes(StandardCharsets.UTF_8)), out);
+        checkEqual(out.toString("UTF-8"), "a + b\n", "Tab after the mode");
+
+        // a large batch is split over worker threads; responses, blank lines
+        // and error line numbers must match a single thread's
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            batch.append(i % 11 == 0 ? "" : i % 17 == 0 ? "infix2postfix (x" + i : "infix2postfix x" + i + " - 1")
+                    .append('\n');
+        }
+        byte[] requests = batch.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (ConversionServer server = new ConversionServer(false, 0, 1)) {
+            server.serve(new ByteArrayInputStream(requests), single);
+        }
+        out.reset();
+        try (ConversionServer server = new ConversionServer(false, 0, 4)) {
+            server.serve(new ByteArrayInputStream(requests), out);
+        }
+        checkEqual(out.toString("UTF-8"), single.toString("UTF-8"), "Batch on 4 workers matches one thread");
+        checkEqual(single.toString("UTF-8").split("\n", -1)[17], "# Error on line 16: Mismatched parentheses",
+                "Batch error line number");
+    }
+
+    // Test the conversion cache: counters, LRU eviction, errors, threads
+    static void testConversionCache() throws Exception {
+        System.out.println("\n=== Test: Conversion Cache ===");
+
+        ConversionCache cache = new ConversionCache(16); // small: one stripe, exact LRU
+        for (int i = 0; i < 16; i++) {
+            cache.get("k" + i + " + 1", Expressions::infixToPostfix);
+        }
+        cache.get("k0 + 1", Expressions::infixToPostfix); // k0 is now the most recent
+        cache.get("k16 + 1", Expressions::infixToPostfix); // evicts k1, the least recent
+        checkEqual(cache.hits() + " " + cache.misses() + " " + cache.evictions() + " " + cache.size(),
+                "1 17 1 16", "Hits, misses, evictions, size");
+        String[] converted = {"none"};
+        cache.get("k0 + 1", text -> converted[0] = "again");
+        cache.get("k1 + 1", text -> converted[0] = "again");
+        checkEqual(converted[0] + " " + cache.hits(), "again 2", "Least recently used went first");
+
+        checkEqual(errorOf(() -> cache.get("(x", Expressions::infixToPostfix)), "Mismatched parentheses",
+                "Errors pass through");
+        checkEqual(errorOf(() -> cache.get("(x", Expressions::infixToPostfix)), "Mismatched parentheses",
+                "Errors are not cached");
+
+        ConversionCache big = new ConversionCache(1000);
+        for (int i = 0; i < 5000; i++) {
+            big.get("x" + i, Expressions::infixToPostfix);
+        }
+        checkTrue(big.size() <= 1000 && big.size() > 900, "Striped cache stays near its capacity");
+        checkEqual(String.valueOf(big.evictions() + big.size()), "5000", "Every miss is held or evicted");
+
+        // concurrent callers always get the right answer
+        ConversionCache shared = new ConversionCache(64);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                results.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    boolean right = true;
+                    for (int i = 0; i < 20_000; i++) {
+                        int k = random.nextInt(200);
+                        right &= shared.get("a" + k + " * b", Expressions::infixToPostfix).equals("a" + k + " b *");
+                    }
+                    return right;
+                }));
+            }
+            boolean right = true;
+            for (Future<Boolean> result : results) {
+                right &= result.get();
+            }
+            checkTrue(right, "Four threads, right answers");
+            checkEqual(String.valueOf(shared.hits() + shared.misses()), "80000", "Four threads, every call counted");
+        } finally {
+            pool.shutdown();
+        }
+
+        // in front of file conversion
+        Path input = Files.createTempFile("exprs", ".txt");
+        Path output = Files.createTempFile("exprs", ".out");
+        try {
+            Files.write(input, Arrays.asList("a + b", "(x", "a + b", "", "(x", "a + b"), StandardCharsets.UTF_8);
+            ConversionCache fileCache = new ConversionCache(100);
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString(), false, 1, fileCache);
+            checkEqual(String.join("|", Files.readAllLines(output, StandardCharsets.UTF_8)),
+                    "a b +|# Error on line 2: Mismatched parentheses|a b +||# Error on line 4: Mismatched parentheses|a b +",
+                    "Cached file conversion");
+            checkEqual(fileCache.hits() + " " + fileCache.misses(), "2 3", "Repeated lines are hits");
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    // The suite also runs with -Ddsa.metrics=true, which turns the
+    // counting on
+    static void testMetrics() throws Exception {
+        System.out.println("\n=== Test: Metrics (enabled=" + Metrics.ENABLED + ") ===");
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        long p50 = histogram.percentile(50.0);
+        checkTrue(p50 >= 500 && p50 <= 500 + 500 / 16, "Median within a bucket, got " + p50);
+        checkTrue(histogram.percentile(100.0) == 1000 && histogram.max() == 1000, "Top percentile is the max");
+        checkTrue(histogram.count() == 1000 && histogram.mean() == 500.5, "Count and mean");
+        boolean tight = true;
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63)); // any non-negative size
+            long high = LatencyHistogram.highestIn(LatencyHistogram.bucketOf(value));
+            tight &= high >= value && high - value <= value / 16;
+        }
+        checkTrue(tight, "Buckets hold their values within 1/16");
+
+        ConversionMetrics toPostfix = Metrics.INFIX_TO_POSTFIX;
+        ConversionMetrics toInfix = Metrics.POSTFIX_TO_INFIX;
+        toPostfix.reset();
+        toInfix.reset();
+        Expressions.infixToPostfix("a + b * c");
+        Expressions.postfixToInfix("a b c * +");
+        errorOf(() -> Expressions.infixToPostfix("(a + b"));
+        errorOf(() -> Expressions.infixToPostfix("a + b)"));
+        errorOf(() -> Expressions.postfixToInfix("a +"));
+        if (!Metrics.ENABLED) {
+            checkTrue(toPostfix.getConversions() + toPostfix.getErrors() + toInfix.getConversions() == 0,
+                    "Nothing counted when disabled");
+            return;
+        }
+        checkEqual(toPostfix.getConversions() + " " + toPostfix.getTokens(), "1 5", "Conversions and tokens");
+        checkEqual(toInfix.getConversions() + " " + toInfix.getTokens(), "1 5", "Postfix conversions and tokens");
+        checkEqual(toPostfix.getErrorCounts().toString(), "{Mismatched parentheses=2}", "Errors by kind");
+        checkEqual(toInfix.getErrorCounts().toString(), "{Not enough operands=1}", "Postfix errors by kind");
+        checkTrue(toPostfix.getP50Nanos() > 0 && toPostfix.getTokensPerSecond() > 0, "Latency and rate");
+
+        Path input = Files.createTempFile("exprs", ".txt");
+        Path output = Files.createTempFile("exprs", ".out");
+        try {
+            Files.write(input, Arrays.asList("a + b", "a + b", "x - y"), StandardCharsets.UTF_8);
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString(), false, 1,
+                    new ConversionCache(10));
+            checkEqual(toPostfix.getCacheHits() + " " + toPostfix.getCacheMisses(), "1 2", "Cache lookups");
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object conversions = server.getAttribute(new ObjectName("dsa:type=Conversion,name=infix2postfix"),
+                "Conversions");
+        checkEqual(String.valueOf(conversions), "3", "Conversions over JMX");
+
+        // --optimize goes through Expr, and is counted the same way
+        toPostfix.reset();
+        toInfix.reset();
+        input = Files.createTempFile("exprs", ".txt");
+        output = Files.createTempFile("exprs", ".out");
+        try {
+            Files.write(input, Arrays.asList("2 * 3 + x", "(a + b"), StandardCharsets.UTF_8);
+            Expressions.convertFile("infix2postfix", input.toString(), output.toString(), true, 1);
+            Files.write(input, Arrays.asList("2 3 * x +", "a +"), StandardCharsets.UTF_8);
+            Expressions.convertFile("postfix2infix", input.toString(), output.toString(), true, 1);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+        checkEqual(toPostfix.getConversions() + " " + toPostfix.getTokens() + " " + toPostfix.getErrorCounts(),
+                "1 5 {Mismatched parentheses=1}", "Optimized conversions, tokens and errors");
+        checkEqual(toInfix.getConversions() + " " + toInfix.getTokens() + " " + toInfix.getErrorCounts(),
+                "1 5 {Not enough operands=1}", "Optimized postfix conversions, tokens and errors");
+    }
+
+    // Message of the exception thrown by 'action' ("no error" if none)
+    static String errorOf(Runnable action) {
+        try {
+            action.run();
+            return "no error";
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("Running Expression Tests...");
+        System.out.println("==================================================");
+
+        testRoundtrip();
+        testLexer();
+        testConversions();
+        testDeepExpressions();
+        testOperatorTable();
+        testCompiledEvaluation();
+        testOptimizer();
+        testFileConversion();
+        testStreaming();
+        testServer();
+        testConversionCache();
+        testMetrics();
+
+        System.out.println("\n==================================================");
+        System.out.println("Tests Passed: " + passed);
+        System.out.println("Tests Failed: " + failed);
+        System.out.println("==================================================");
+
+        if (failed == 0) {
+            System.out.println("\n✓ All tests passed!");
+        } else {
+            System.exit(1); // fails the Maven build
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +0,0 @@
-// Node.java - Simple node for BST
-public class Node {
-  int data;
-  Node left;
-  Node right;
-  int count; // for duplicates
-
-  public Node(int data) {
-    this.data = data;
-    this.count = 1;
-  }
-}
\ No newline at end of file